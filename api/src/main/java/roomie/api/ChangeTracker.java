@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Remembers column values of entities as they were loaded from or written to the database,
+ * so a save can write the changed columns only.
+ * <p>
+ * Entities are matched by identity and referenced weakly, so tracking never keeps an entity
+ * in memory and doesn't depend on its {@code equals()} implementation.
+ */
+public final class ChangeTracker {
+
+    private final WeakIdentityMap<Object[]> snapshots = new WeakIdentityMap<>();
+
+    public void snapshot(@NonNull Object entity, @NonNull Object[] values) {
+        snapshots.put(entity, values);
+    }
+
+    /**
+     * @return column values of the last snapshot or {@code null} if the entity isn't tracked.
+     * The returned array is the tracked snapshot itself.
+     */
+    @Nullable
+    public Object[] getSnapshot(@NonNull Object entity) {
+        return snapshots.get(entity);
+    }
+
+    public void forget(@NonNull Object entity) {
+        snapshots.remove(entity);
+    }
+
+    /**
+     * Compares a snapshot value with the current one. Arrays are compared by content.
+     */
+    public static boolean isChanged(@Nullable Object snapshot, @Nullable Object value) {
+        if (snapshot == value) {
+            return false;
+        }
+        if (snapshot == null || value == null) {
+            return true;
+        }
+        if (snapshot instanceof byte[] && value instanceof byte[]) {
+            return !Arrays.equals((byte[]) snapshot, (byte[]) value);
+        }
+        return !snapshot.equals(value);
+    }
+}
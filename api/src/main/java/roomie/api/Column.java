@@ -31,4 +31,17 @@ public @interface Column {
     Class<? extends TypeAdapter<?>> adapter() default DefaultTypeAdapter.class;
     @DatabaseType String databaseType() default "";
     String defaultValue() default "";
+    /** Generates a keyset paged {@code queryPageBy<Field>()} ordered by this column. */
+    boolean sortable() default false;
+    /**
+     * Leaves the column out of the bulk queries, it's loaded by {@code load()} and {@code loadDeferred()} only.
+     * A {@code null} value of a lazy column that was neither loaded nor written doesn't overwrite the stored one
+     * on update, once the column is loaded {@code null} is written as {@code NULL}.
+     */
+    boolean lazy() default false;
+    /**
+     * Generates {@code countBy<Field>()} counting rows per distinct value of the column in SQL.
+     * Meant for columns with few distinct values, e.g. a type or a status.
+     */
+    boolean groupable() default false;
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps cursor rows to entities one by one as the iteration advances, so only the current
+ * entity is kept in memory.
+ * <p>
+ * The iterator can be traversed only once. The cursor is closed when the last row is reached,
+ * an iteration stopped earlier must {@link #close()} it explicitly, e.g. with try-with-resources.
+ */
+public final class CursorIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
+    @NonNull
+    private final Cursor cursor;
+    @NonNull
+    private final RowMapper<T> mapper;
+    @Nullable
+    private Runnable onClose;
+
+    private boolean hasNextRow;
+    private boolean moved;
+
+    public CursorIterator(@NonNull Cursor cursor, @NonNull RowMapper<T> mapper) {
+        this(cursor, mapper, null);
+    }
+
+    /**
+     * @param onClose invoked once the cursor is closed, e.g. to release the connection it was queried on
+     */
+    public CursorIterator(@NonNull Cursor cursor, @NonNull RowMapper<T> mapper, @Nullable Runnable onClose) {
+        this.cursor = cursor;
+        this.mapper = mapper;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!moved) {
+            hasNextRow = !cursor.isClosed() && cursor.moveToNext();
+            moved = true;
+            if (!hasNextRow) {
+                close();
+            }
+        }
+        return hasNextRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        moved = false;
+        return mapper.map(cursor);
+    }
+
+    @NonNull
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+        if (onClose != null) {
+            Runnable action = onClose;
+            onClose = null;
+            action.run();
+        }
+    }
+}
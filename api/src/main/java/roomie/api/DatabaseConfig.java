@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tunes the connection opened by the generated {@code RoomieDatabaseHelper}. Declare it once
+ * on any class of the module, e.g. the helper subclass. Values of {@code 0} keep SQLite defaults.
+ * <p>
+ * {@link #pageSize()} only applies to a database that is created with it.
+ * {@link #mmapSize()} and {@link #cacheSize()} are connection settings and only apply
+ * to the primary connection of the helper.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DatabaseConfig {
+
+    enum Synchronous {
+        DEFAULT, OFF, NORMAL, FULL
+    }
+
+    boolean writeAheadLogging() default true;
+
+    /** {@code NORMAL} is durable in WAL mode except for the last transactions on power loss. */
+    Synchronous synchronous() default Synchronous.DEFAULT;
+
+    /** Maximum number of bytes of the database file accessed through memory mapped I/O. */
+    long mmapSize() default 0;
+
+    /** Page cache size, in pages if positive or in KiB if negative. */
+    int cacheSize() default 0;
+
+    /** Page size in bytes, a power of two between 512 and 65536. */
+    int pageSize() default 0;
+}
@@ -18,10 +18,19 @@ package roomie.api;
 
 
 import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
 
 public interface DatabaseProvider {
 
     SQLiteDatabase getReadableDatabase();
 
     SQLiteDatabase getWritableDatabase();
+
+    /**
+     * Called by entity helpers once they are done with a database obtained from
+     * {@link #getReadableDatabase()}, so pooled connections can be reused.
+     */
+    default void releaseReadableDatabase(@NonNull SQLiteDatabase database) {
+        // no-op for providers with a single connection
+    }
 }
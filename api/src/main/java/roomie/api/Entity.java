@@ -25,4 +25,33 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 public @interface Entity {
     String table();
+
+    /**
+     * Database version the entity schema was last changed in. Upgrades from older versions
+     * compare the table with the entity and migrate it.
+     */
+    int version() default 1;
+
+    /**
+     * Snapshot column values of every entity read by the helper and after writes, so
+     * {@code save()} updates changed columns only and skips the write when nothing changed.
+     * Snapshots hold references to the values, which are compared with {@code equals()},
+     * so adapted column types should be immutable.
+     */
+    boolean trackChanges() default false;
+
+    /**
+     * Maximum number of entities loaded by {@code load()} kept in the helper's LRU cache by
+     * primary key, {@code 0} turns the cache off. Entities written by the helper are evicted,
+     * writes made bypassing it have to be reported with {@link Transactions#tableChanged} and
+     * expire all cached entities of the table. The helper's {@code cacheHitCount()} and
+     * {@code cacheMissCount()} help to size it.
+     */
+    int cacheSize() default 100;
+
+    /**
+     * Keep results of {@code queryAll} and finder methods in {@link QueryCache} until
+     * the table is written through the helper.
+     */
+    boolean cacheQueries() default false;
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps fully loaded entities of a table by primary key.
+ * <p>
+ * Entities written by the helper are evicted one by one, once the outermost transaction of the
+ * write ends. An entity is cached only if the {@link QueryCache#getVersion(String) table version}
+ * read before it was loaded is still current, so reads that raced with a write never leave stale
+ * entities behind. Writes bypassing the helper, reported with
+ * {@link Transactions#tableChanged(SQLiteDatabase, String)}, expire all entities of the table.
+ * Entities are evicted in least recently used order.
+ */
+public final class EntityCache<T> {
+
+    private static final Map<String, Long> EXTERNAL_WRITES = new HashMap<>();
+
+    private final String table;
+    private final LruCache<Long, Entry<T>> entries;
+    private int expiredCount;
+
+    public EntityCache(@NonNull String table, int maxSize) {
+        this.table = table;
+        this.entries = new LruCache<>(maxSize);
+    }
+
+    public long getVersion() {
+        return QueryCache.getInstance().getVersion(table);
+    }
+
+    /**
+     * @return cached entity or {@code null} if there is none or the table was written bypassing
+     * the helper since it was cached
+     */
+    @Nullable
+    public T get(long id) {
+        Transactions.reportEnded();
+        synchronized (this) {
+            Entry<T> entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.externalWrites != getExternalWrites(table)) {
+                entries.remove(id);
+                expiredCount++;
+                return null;
+            }
+            return entry.entity;
+        }
+    }
+
+    /**
+     * Caches the entity, unless the table was written after {@code version} had been read.
+     */
+    public synchronized void put(long id, @NonNull T entity, long version) {
+        if (version == getVersion()) {
+            entries.put(id, new Entry<>(entity, getExternalWrites(table)));
+        }
+    }
+
+    /**
+     * Evicts an entity written on {@code db}, again once the outermost transaction ends to drop
+     * it if a read of the previous state cached it in the meantime.
+     */
+    public void remove(@NonNull SQLiteDatabase db, final long id) {
+        remove(id);
+        if (db.inTransaction()) {
+            Transactions.onEnd(db, new Runnable() {
+                @Override
+                public void run() {
+                    remove(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return number of lookups that returned a cached entity
+     */
+    public synchronized int hitCount() {
+        return entries.hitCount() - expiredCount;
+    }
+
+    /**
+     * @return number of lookups that found no entity or an expired one
+     */
+    public synchronized int missCount() {
+        return entries.missCount() + expiredCount;
+    }
+
+    private synchronized void remove(long id) {
+        entries.remove(id);
+    }
+
+    static void tableWritten(@NonNull String table) {
+        synchronized (EXTERNAL_WRITES) {
+            EXTERNAL_WRITES.put(table, getExternalWrites(table) + 1);
+        }
+    }
+
+    private static long getExternalWrites(String table) {
+        synchronized (EXTERNAL_WRITES) {
+            Long count = EXTERNAL_WRITES.get(table);
+            return count != null ? count : 0;
+        }
+    }
+
+    private static final class Entry<T> {
+        final T entity;
+        final long externalWrites;
+
+        Entry(T entity, long externalWrites) {
+            this.entity = entity;
+            this.externalWrites = externalWrites;
+        }
+    }
+}
@@ -20,13 +20,52 @@ package roomie.api;
 import android.support.annotation.NonNull;
 import android.support.annotation.WorkerThread;
 
+import java.util.Collection;
+import java.util.concurrent.Future;
+
 public interface EntityHelper<T> {
     @WorkerThread
     void load(@NonNull T entity, @NonNull DatabaseProvider databaseProvider);
     @WorkerThread
     void save(@NonNull T entity, @NonNull DatabaseProvider databaseProvider);
     @WorkerThread
+    void saveAll(@NonNull Collection<T> entities, @NonNull DatabaseProvider databaseProvider);
+    @WorkerThread
     void delete(@NonNull T entity, @NonNull DatabaseProvider databaseProvider);
 
     String toString(@NonNull T entity);
+
+    /**
+     * Saves the entity on the writer thread of {@code writeQueue} along with other queued writes.
+     * The entity must not be modified until the returned future completes.
+     */
+    @NonNull
+    default Future<Void> saveAsync(@NonNull final T entity, @NonNull WriteQueue writeQueue) {
+        return writeQueue.submit(new WriteQueue.Write() {
+            @Override
+            public void execute(@NonNull DatabaseProvider databaseProvider) {
+                save(entity, databaseProvider);
+            }
+        });
+    }
+
+    @NonNull
+    default Future<Void> saveAllAsync(@NonNull final Collection<T> entities, @NonNull WriteQueue writeQueue) {
+        return writeQueue.submit(new WriteQueue.Write() {
+            @Override
+            public void execute(@NonNull DatabaseProvider databaseProvider) {
+                saveAll(entities, databaseProvider);
+            }
+        });
+    }
+
+    @NonNull
+    default Future<Void> deleteAsync(@NonNull final T entity, @NonNull WriteQueue writeQueue) {
+        return writeQueue.submit(new WriteQueue.Write() {
+            @Override
+            public void execute(@NonNull DatabaseProvider databaseProvider) {
+                delete(entity, databaseProvider);
+            }
+        });
+    }
 }
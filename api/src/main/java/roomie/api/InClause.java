@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+
+/**
+ * Builds {@code column IN (?,?,...)} selections for lists of primary keys. Lists longer than
+ * {@link #MAX_ARGUMENTS} have to be split into chunks, as SQLite refuses statements with more
+ * bind parameters than that.
+ */
+public final class InClause {
+
+    /**
+     * Default {@code SQLITE_MAX_VARIABLE_NUMBER} of SQLite versions shipped with Android.
+     */
+    public static final int MAX_ARGUMENTS = 999;
+
+    private InClause() {
+        // no instances
+    }
+
+    @NonNull
+    public static String selection(@NonNull String column, int count) {
+        StringBuilder selection = new StringBuilder(column.length() + 6 + count * 2);
+        selection.append(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                selection.append(',');
+            }
+            selection.append('?');
+        }
+        return selection.append(')').toString();
+    }
+
+    @NonNull
+    public static String[] args(@NonNull long[] ids, int offset, int count) {
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = Long.toString(ids[offset + i]);
+        }
+        return args;
+    }
+}
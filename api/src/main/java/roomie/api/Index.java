@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an index of the entity table. On a column field it indexes the column itself,
+ * on an entity class it must list the indexed {@link #columns()}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD, ElementType.TYPE})
+@Repeatable(Indices.class)
+public @interface Index {
+    /** Index name, {@code index_<table>_<columns>} by default. */
+    String name() default "";
+    /** Column names of a composite index in the index order. */
+    String[] columns() default {};
+    boolean unique() default false;
+    /** Optional expression of a partial index, e.g. {@code "PHONE_NUMBER IS NOT NULL"}. */
+    String where() default "";
+}
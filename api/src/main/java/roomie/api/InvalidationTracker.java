@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Notifies observers about tables changed by generated entity helpers. Changes are reported
+ * through {@link Transactions}, so observers are notified once the outermost transaction
+ * of the write has ended.
+ */
+public final class InvalidationTracker {
+
+    public interface Observer {
+        void onTableChanged(@NonNull String table);
+    }
+
+    private static final InvalidationTracker INSTANCE = new InvalidationTracker();
+
+    private final Map<String, List<Observer>> observers = new ConcurrentHashMap<>();
+
+    private InvalidationTracker() {
+    }
+
+    public static InvalidationTracker getInstance() {
+        return INSTANCE;
+    }
+
+    public void addObserver(@NonNull String table, @NonNull Observer observer) {
+        List<Observer> tableObservers = observers.get(table);
+        if (tableObservers == null) {
+            synchronized (observers) {
+                tableObservers = observers.get(table);
+                if (tableObservers == null) {
+                    tableObservers = new CopyOnWriteArrayList<>();
+                    observers.put(table, tableObservers);
+                }
+            }
+        }
+        tableObservers.add(observer);
+    }
+
+    public void removeObserver(@NonNull String table, @NonNull Observer observer) {
+        List<Observer> tableObservers = observers.get(table);
+        if (tableObservers != null) {
+            tableObservers.remove(observer);
+        }
+    }
+
+    public void notifyChanged(@NonNull String table) {
+        List<Observer> tableObservers = observers.get(table);
+        if (tableObservers != null) {
+            for (Observer observer : tableObservers) {
+                observer.onTableChanged(table);
+            }
+        }
+    }
+}
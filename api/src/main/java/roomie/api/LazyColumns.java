@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+
+/**
+ * Remembers which lazy columns of entities hold values loaded from or written to the database.
+ * <p>
+ * A {@code null} value of a lazy column that was never loaded keeps the stored value on update,
+ * while a loaded one is written as {@code NULL}. Columns are identified by their bit in a mask,
+ * so an entity can have up to 64 lazy columns. Entities are matched by identity and referenced
+ * weakly.
+ */
+public final class LazyColumns {
+
+    private final WeakIdentityMap<Long> loaded = new WeakIdentityMap<>();
+
+    /**
+     * Marks the {@code columns} mask as loaded in addition to the columns loaded already.
+     */
+    public void setLoaded(@NonNull Object entity, long columns) {
+        synchronized (loaded) {
+            Long previous = loaded.get(entity);
+            loaded.put(entity, previous != null ? previous | columns : columns);
+        }
+    }
+
+    public boolean isLoaded(@NonNull Object entity, long column) {
+        Long columns = loaded.get(entity);
+        return columns != null && (columns & column) != 0;
+    }
+
+    public void forget(@NonNull Object entity) {
+        loaded.remove(entity);
+    }
+}
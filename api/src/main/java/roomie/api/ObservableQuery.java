@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a query on the executor once subscribed and again every time its table is changed.
+ * <p>
+ * Changes made while a run is already scheduled don't schedule another one, so a burst
+ * of writes results in a single run that sees all of them.
+ */
+public final class ObservableQuery<T> implements InvalidationTracker.Observer, Subscription {
+
+    private final String table;
+    private final Callable<T> query;
+    private final ResultCallback<T> callback;
+    private final Executor executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile boolean disposed;
+
+    private final Runnable run = new Runnable() {
+        @Override
+        public void run() {
+            pending.set(false);
+            if (disposed) {
+                return;
+            }
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                // the next change of the table runs the query again
+                if (!disposed) {
+                    callback.onError(e);
+                }
+                return;
+            }
+            if (!disposed) {
+                callback.onResult(result);
+            }
+        }
+    };
+
+    private ObservableQuery(String table, Callable<T> query, ResultCallback<T> callback, Executor executor) {
+        this.table = table;
+        this.query = query;
+        this.callback = callback;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts observing {@code table}. The callback is invoked on the executor thread with every
+     * result or failure of the query.
+     */
+    @NonNull
+    public static <T> Subscription subscribe(@NonNull String table, @NonNull Callable<T> query,
+            @NonNull ResultCallback<T> callback, @NonNull Executor executor) {
+        ObservableQuery<T> observableQuery = new ObservableQuery<>(table, query, callback, executor);
+        InvalidationTracker.getInstance().addObserver(table, observableQuery);
+        observableQuery.schedule();
+        return observableQuery;
+    }
+
+    @Override
+    public void onTableChanged(@NonNull String table) {
+        schedule();
+    }
+
+    @Override
+    public void dispose() {
+        if (!disposed) {
+            disposed = true;
+            InvalidationTracker.getInstance().removeObserver(table, this);
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    private void schedule() {
+        if (!disposed && pending.compareAndSet(false, true)) {
+            executor.execute(run);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of entities loaded with keyset pagination.
+ */
+public final class Page<T> {
+    @NonNull
+    private final List<T> items;
+    @Nullable
+    private final PageKey nextKey;
+
+    public Page(@NonNull List<T> items, @Nullable PageKey nextKey) {
+        this.items = items;
+        this.nextKey = nextKey;
+    }
+
+    @NonNull
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return key to pass to the same query method to load the next page
+     * or {@code null} if this is the last page.
+     */
+    @Nullable
+    public PageKey getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Position of the last row of a page: the value of the sort column and the primary key
+ * used as a tie breaker for equal values.
+ * <p>
+ * Pages are selected with {@code WHERE key > ?} instead of {@code OFFSET}, so loading
+ * any page costs the same regardless of how deep it is.
+ */
+public final class PageKey {
+    @Nullable
+    private final Object value;
+    private final long id;
+
+    public PageKey(@Nullable Object value, long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Creates a key from the current row of the cursor.
+     *
+     * @param valueIndex index of the sort column or {@code -1} if pages are ordered by primary key
+     */
+    @NonNull
+    public static PageKey fromCursor(@NonNull Cursor cursor, int valueIndex, long id) {
+        if (valueIndex < 0) {
+            return new PageKey(null, id);
+        }
+
+        Object value;
+        switch (cursor.getType(valueIndex)) {
+            case Cursor.FIELD_TYPE_NULL:
+                value = null;
+                break;
+            case Cursor.FIELD_TYPE_INTEGER:
+                value = cursor.getLong(valueIndex);
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                value = cursor.getDouble(valueIndex);
+                break;
+            case Cursor.FIELD_TYPE_STRING:
+                value = cursor.getString(valueIndex);
+                break;
+            default:
+                throw new IllegalArgumentException("BLOB columns can't be used as a page key");
+        }
+        return new PageKey(value, id);
+    }
+
+    @Nullable
+    public Object getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return selection of the rows following this key in {@code ORDER BY column, idColumn} order.
+     * SQLite sorts {@code NULL} values first.
+     */
+    @NonNull
+    public String getSelection(@NonNull String column, @NonNull String idColumn) {
+        if (value == null) {
+            return String.format("(`%1$s` IS NULL AND `%2$s` > ?) OR `%1$s` IS NOT NULL", column, idColumn);
+        }
+        return String.format("`%1$s` > ? OR (`%1$s` = ? AND `%2$s` > ?)", column, idColumn);
+    }
+
+    @NonNull
+    public String[] getSelectionArgs() {
+        String id = Long.toString(this.id);
+        if (value == null) {
+            return new String[] { id };
+        }
+        String value = this.value.toString();
+        return new String[] { value, value, id };
+    }
+}
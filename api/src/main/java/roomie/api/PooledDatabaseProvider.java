@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Provides a single writer connection of the helper and up to {@code readerCount} read-only
+ * connections, so reads run in parallel with each other and with a write in progress.
+ * <p>
+ * The database is switched to write-ahead logging, which lets readers see the last committed
+ * state while the writer holds a transaction. Reads made by a thread inside a write transaction
+ * use the writer itself to see their own changes. Connection settings of the helper's
+ * {@code onConfigure()} only apply to the writer.
+ */
+public final class PooledDatabaseProvider implements DatabaseProvider {
+
+    private final SQLiteOpenHelper helper;
+    private final int readerCount;
+    private final BlockingQueue<SQLiteDatabase> idleReaders;
+    private final List<SQLiteDatabase> readers;
+
+    private boolean closed;
+    private int inUseCount;
+    private long acquireCount;
+    private long waitCount;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    public PooledDatabaseProvider(@NonNull SQLiteOpenHelper helper, int readerCount) {
+        if (readerCount <= 0) {
+            throw new IllegalArgumentException("Reader count must be positive");
+        }
+        this.helper = helper;
+        this.readerCount = readerCount;
+        this.idleReaders = new ArrayBlockingQueue<>(readerCount);
+        this.readers = new ArrayList<>(readerCount);
+    }
+
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        SQLiteDatabase writer = helper.getWritableDatabase();
+        if (!writer.isWriteAheadLoggingEnabled()) {
+            synchronized (this) {
+                if (!writer.isWriteAheadLoggingEnabled()) {
+                    writer.enableWriteAheadLogging();
+                }
+            }
+        }
+        return writer;
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        SQLiteDatabase writer = getWritableDatabase();
+        if (writer.isDbLockedByCurrentThread() || isClosed()) {
+            return writer;
+        }
+
+        SQLiteDatabase reader = idleReaders.poll();
+        if (reader == null) {
+            reader = openReader(writer);
+        }
+        if (reader == null) {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                reader = idleReaders.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a reader connection", e);
+            }
+            long waitMillis = SystemClock.elapsedRealtime() - start;
+            synchronized (this) {
+                waitCount++;
+                totalWaitMillis += waitMillis;
+                maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+            }
+        }
+        synchronized (this) {
+            acquireCount++;
+            inUseCount++;
+        }
+        return reader;
+    }
+
+    @Override
+    public void releaseReadableDatabase(@NonNull SQLiteDatabase database) {
+        synchronized (this) {
+            if (!readers.contains(database)) {
+                return; // the writer
+            }
+            inUseCount--;
+            if (closed) {
+                readers.remove(database);
+                database.close();
+                return;
+            }
+        }
+        idleReaders.offer(database);
+    }
+
+    /**
+     * Closes reader connections, readers in use are closed once released.
+     * Reads made afterwards use the writer.
+     */
+    public synchronized void close() {
+        closed = true;
+        SQLiteDatabase reader;
+        while ((reader = idleReaders.poll()) != null) {
+            readers.remove(reader);
+            reader.close();
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public int getReaderCount() {
+        return readerCount;
+    }
+
+    public synchronized int getOpenReaderCount() {
+        return readers.size();
+    }
+
+    public synchronized int getInUseCount() {
+        return inUseCount;
+    }
+
+    public synchronized long getAcquireCount() {
+        return acquireCount;
+    }
+
+    /**
+     * @return number of acquisitions that had to wait for a reader to be released
+     */
+    public synchronized long getWaitCount() {
+        return waitCount;
+    }
+
+    public synchronized long getTotalWaitTimeMillis() {
+        return totalWaitMillis;
+    }
+
+    public synchronized long getMaxWaitTimeMillis() {
+        return maxWaitMillis;
+    }
+
+    private synchronized SQLiteDatabase openReader(SQLiteDatabase writer) {
+        if (readers.size() >= readerCount) {
+            return null;
+        }
+        SQLiteDatabase reader = SQLiteDatabase.openDatabase(writer.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        readers.add(reader);
+        return reader;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps mapped results of queries by table, SQL and arguments.
+ * <p>
+ * Every write to a table bumps its version and drops the cached results of the table.
+ * A result is cached along with the table version read before the query was run, so
+ * results of reads that raced with a write are never served.
+ * <p>
+ * Results are evicted in least recently used order once the total weight exceeds
+ * {@link #setMaxSize(int) the max size}. By default the weight of a result is its row count.
+ */
+public final class QueryCache {
+
+    public interface Weigher {
+        int weigh(@NonNull String table, @NonNull List<?> rows);
+    }
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final Weigher ROW_COUNT = new Weigher() {
+        @Override
+        public int weigh(@NonNull String table, @NonNull List<?> rows) {
+            return Math.max(1, rows.size());
+        }
+    };
+
+    private static final QueryCache INSTANCE = new QueryCache();
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private Weigher weigher = ROW_COUNT;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private int size;
+    private int hitCount;
+    private int missCount;
+
+    private QueryCache() {
+    }
+
+    public static QueryCache getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size can't be negative");
+        }
+        this.maxSize = maxSize;
+        trimToSize();
+    }
+
+    /**
+     * Replaces the weight function of cached results, e.g. to budget memory in bytes
+     * instead of rows. Cached results are dropped as their weights are not comparable.
+     */
+    public synchronized void setWeigher(@NonNull Weigher weigher) {
+        this.weigher = weigher;
+        clear();
+    }
+
+    public synchronized long getVersion(@NonNull String table) {
+        Long version = versions.get(table);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * @return cached result or {@code null} if there is none for the current table version
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T> List<T> get(@NonNull String table, @NonNull String sql, @Nullable String[] args) {
+        Transactions.reportEnded();
+        synchronized (this) {
+            CachedResult result = results.get(key(table, sql, args));
+            if (result == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return (List<T>) result.rows;
+        }
+    }
+
+    /**
+     * Caches the result of a query, unless the table was written after {@code version}
+     * had been read.
+     */
+    public synchronized void put(@NonNull String table, @NonNull String sql, @Nullable String[] args,
+            long version, @NonNull List<?> rows) {
+        if (version != getVersion(table)) {
+            return;
+        }
+        int weight = weigher.weigh(table, rows);
+        if (weight > maxSize) {
+            return;
+        }
+        CachedResult previous = results.put(key(table, sql, args), new CachedResult(table, rows, weight));
+        if (previous != null) {
+            size -= previous.weight;
+        }
+        size += weight;
+        trimToSize();
+    }
+
+    public synchronized void invalidate(@NonNull String table) {
+        versions.put(table, getVersion(table) + 1);
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (iterator.hasNext()) {
+            CachedResult result = iterator.next();
+            if (result.table.equals(table)) {
+                size -= result.weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    private void trimToSize() {
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    private static String key(String table, String sql, @Nullable String[] args) {
+        StringBuilder key = new StringBuilder(table).append('\u0000').append(sql);
+        if (args != null) {
+            for (String arg : args) {
+                key.append('\u0000').append(arg);
+            }
+        }
+        return key.toString();
+    }
+
+    private static final class CachedResult {
+        final String table;
+        final List<?> rows;
+        final int weight;
+
+        CachedResult(String table, List<?> rows, int weight) {
+            this.table = table;
+            this.rows = rows;
+            this.weight = weight;
+        }
+    }
+}
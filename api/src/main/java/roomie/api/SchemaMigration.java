@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings an existing table to the schema declared by its entity, keeping the data.
+ * <p>
+ * A missing table is created. Missing columns are added with {@code ALTER TABLE ADD COLUMN}.
+ * If a column changed its type, default value or primary key role, the table is rebuilt:
+ * it's renamed, created anew and the values of the columns both schemas share are copied
+ * with {@code INSERT ... SELECT}. Columns removed from the entity are kept unless the table
+ * is rebuilt. The indices are created at the end as a rebuild drops them.
+ */
+public final class SchemaMigration {
+
+    public static final class ColumnDefinition {
+        final String name;
+        final String type;
+        @Nullable
+        final String defaultValue;
+        final boolean primaryKey;
+
+        /**
+         * @param defaultValue SQL literal of the default value, e.g. {@code 'text'}
+         */
+        public ColumnDefinition(@NonNull String name, @NonNull String type, @Nullable String defaultValue,
+                boolean primaryKey) {
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+            this.primaryKey = primaryKey;
+        }
+
+        boolean matches(ColumnDefinition actual) {
+            return type.equalsIgnoreCase(actual.type)
+                    && TextUtils.equals(defaultValue, actual.defaultValue)
+                    && primaryKey == actual.primaryKey;
+        }
+    }
+
+    private static final String REBUILT_TABLE_SUFFIX = "_roomie_old";
+
+    private SchemaMigration() {
+        // no instances
+    }
+
+    public static void migrate(@NonNull SQLiteDatabase database, @NonNull String table,
+            @NonNull String createStatement, @NonNull String[] indexStatements,
+            @NonNull ColumnDefinition... columns) {
+        database.beginTransaction();
+        try {
+            Map<String, ColumnDefinition> existing = readColumns(database, table);
+            if (existing.isEmpty()) {
+                database.execSQL(createStatement);
+            } else {
+                List<ColumnDefinition> added = new ArrayList<>();
+                boolean rebuild = false;
+                for (ColumnDefinition column : columns) {
+                    ColumnDefinition actual = existing.get(column.name);
+                    if (actual == null) {
+                        // a primary key can't be added to an existing table
+                        rebuild |= column.primaryKey;
+                        added.add(column);
+                    } else if (!column.matches(actual)) {
+                        rebuild = true;
+                    }
+                }
+
+                if (rebuild) {
+                    rebuildTable(database, table, createStatement, existing, columns);
+                } else {
+                    for (ColumnDefinition column : added) {
+                        addColumn(database, table, column);
+                    }
+                }
+            }
+
+            for (String indexStatement : indexStatements) {
+                database.execSQL(indexStatement);
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    private static Map<String, ColumnDefinition> readColumns(SQLiteDatabase database, String table) {
+        Map<String, ColumnDefinition> columns = new HashMap<>();
+        Cursor cursor = database.rawQuery("PRAGMA table_info(`" + table + "`)", null);
+        try {
+            int nameIndex = cursor.getColumnIndexOrThrow("name");
+            int typeIndex = cursor.getColumnIndexOrThrow("type");
+            int defaultIndex = cursor.getColumnIndexOrThrow("dflt_value");
+            int pkIndex = cursor.getColumnIndexOrThrow("pk");
+            while (cursor.moveToNext()) {
+                String name = cursor.getString(nameIndex);
+                columns.put(name, new ColumnDefinition(name,
+                        cursor.getString(typeIndex),
+                        cursor.isNull(defaultIndex) ? null : cursor.getString(defaultIndex),
+                        cursor.getInt(pkIndex) > 0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return columns;
+    }
+
+    private static void addColumn(SQLiteDatabase database, String table, ColumnDefinition column) {
+        StringBuilder statement = new StringBuilder("ALTER TABLE `").append(table)
+                .append("` ADD COLUMN `").append(column.name).append("` ").append(column.type);
+        if (column.defaultValue != null) {
+            statement.append(" DEFAULT ").append(column.defaultValue);
+        }
+        database.execSQL(statement.toString());
+    }
+
+    private static void rebuildTable(SQLiteDatabase database, String table, String createStatement,
+            Map<String, ColumnDefinition> existing, ColumnDefinition[] columns) {
+        List<String> copied = new ArrayList<>();
+        for (ColumnDefinition column : columns) {
+            if (existing.containsKey(column.name)) {
+                copied.add("`" + column.name + "`");
+            }
+        }
+
+        String oldTable = table + REBUILT_TABLE_SUFFIX;
+        database.execSQL("ALTER TABLE `" + table + "` RENAME TO `" + oldTable + "`");
+        database.execSQL(createStatement);
+        if (!copied.isEmpty()) {
+            String columnList = TextUtils.join(", ", copied);
+            database.execSQL("INSERT INTO `" + table + "` (" + columnList + ") SELECT " + columnList
+                    + " FROM `" + oldTable + "`");
+        }
+        database.execSQL("DROP TABLE `" + oldTable + "`");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps compiled statements per database connection so single row writes don't compile
+ * the same SQL over and over again.
+ * <p>
+ * A statement is owned by the caller between {@link #acquire(SQLiteDatabase, String)} and
+ * {@link #release(SQLiteDatabase, String, SQLiteStatement)}, so concurrent callers never
+ * share bind arguments. If the same SQL is in use by another thread, a new statement is
+ * compiled and closed on release.
+ */
+public final class StatementCache {
+
+    private final Map<SQLiteDatabase, Map<String, SQLiteStatement>> cache = new HashMap<>();
+
+    @NonNull
+    public SQLiteStatement acquire(@NonNull SQLiteDatabase db, @NonNull String sql) {
+        synchronized (cache) {
+            Map<String, SQLiteStatement> statements = cache.get(db);
+            if (statements != null) {
+                SQLiteStatement statement = statements.remove(sql);
+                if (statement != null) {
+                    return statement;
+                }
+            } else {
+                purgeClosedDatabases();
+            }
+        }
+        return db.compileStatement(sql);
+    }
+
+    public void release(@NonNull SQLiteDatabase db, @NonNull String sql, @NonNull SQLiteStatement statement) {
+        statement.clearBindings();
+        synchronized (cache) {
+            if (db.isOpen()) {
+                Map<String, SQLiteStatement> statements = cache.get(db);
+                if (statements == null) {
+                    statements = new HashMap<>();
+                    cache.put(db, statements);
+                }
+                if (!statements.containsKey(sql)) {
+                    statements.put(sql, statement);
+                    return;
+                }
+            }
+        }
+        statement.close();
+    }
+
+    private void purgeClosedDatabases() {
+        Iterator<Map.Entry<SQLiteDatabase, Map<String, SQLiteStatement>>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<SQLiteDatabase, Map<String, SQLiteStatement>> entry = iterator.next();
+            if (!entry.getKey().isOpen()) {
+                for (SQLiteStatement statement : entry.getValue().values()) {
+                    statement.close();
+                }
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Defers the in-memory side effects of entity helper writes made inside a transaction until
+ * the outermost transaction of the thread ends.
+ * <p>
+ * Table changes are reported to {@link QueryCache} and {@link InvalidationTracker} right away
+ * outside of a transaction. Inside a transaction they are collected per thread and reported
+ * when the outermost transaction ends, so observers never re-read a table before other
+ * connections can see the change. Actions registered with {@link #onRollback(SQLiteDatabase,
+ * Runnable)}, e.g. restoring primary keys assigned by inserts, run if it's rolled back.
+ * <p>
+ * Writes made bypassing the entity helpers are reported with
+ * {@link #tableChanged(SQLiteDatabase, String)}, which also expires the entities of the table
+ * kept in {@link EntityCache}. Helpers report their own writes with
+ * {@link #rowsChanged(SQLiteDatabase, String)} and evict only the written entities.
+ * <p>
+ * Transactions running helper writes should be ended with
+ * {@link #endTransaction(SQLiteDatabase, boolean)}. Changes of a transaction ended directly
+ * with {@link SQLiteDatabase#endTransaction()} are reported by the next cache lookup or write
+ * of the thread, and its rollback actions are dropped as its outcome is unknown.
+ */
+public final class Transactions {
+
+    private static final ThreadLocal<Pending> PENDING = new ThreadLocal<>();
+
+    private Transactions() {
+        // no instances
+    }
+
+    /**
+     * Called by code writing a table bypassing the entity helpers.
+     */
+    public static void tableChanged(@NonNull SQLiteDatabase db, @NonNull String table) {
+        changed(db, table, true);
+    }
+
+    /**
+     * Called by entity helpers, which evict the written entities from their {@link EntityCache}
+     * themselves.
+     */
+    public static void rowsChanged(@NonNull SQLiteDatabase db, @NonNull String table) {
+        changed(db, table, false);
+    }
+
+    /**
+     * Registers an action undoing in-memory changes of a write if the outermost transaction
+     * is rolled back. Does nothing outside of a transaction.
+     */
+    public static void onRollback(@NonNull SQLiteDatabase db, @NonNull Runnable action) {
+        if (db.inTransaction()) {
+            pending(db).rollbackActions.add(action);
+        }
+    }
+
+    /**
+     * Runs the action once the outermost transaction ends, after its changes are reported,
+     * or right away outside of a transaction.
+     */
+    static void onEnd(@NonNull SQLiteDatabase db, @NonNull Runnable action) {
+        if (db.inTransaction()) {
+            pending(db).endActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Ends a transaction begun on {@code db}. Once the outermost transaction ends, the collected
+     * table changes are reported and, if it was rolled back, the rollback actions are run in
+     * reverse order. Changes of a rolled back transaction are reported as well, which only makes
+     * readers query the unchanged data again.
+     *
+     * @param successful whether {@code setTransactionSuccessful()} was called, a nested
+     * transaction ended without it rolls back the outermost one
+     */
+    public static void endTransaction(@NonNull SQLiteDatabase db, boolean successful) {
+        Pending pending = successful ? PENDING.get() : pending(db);
+        boolean ended = false;
+        try {
+            db.endTransaction();
+            ended = true;
+        } finally {
+            if (pending != null) {
+                pending.failed |= !successful || !ended;
+            }
+            if (!db.inTransaction()) {
+                finish(pending, pending != null && pending.failed);
+            }
+        }
+    }
+
+    /**
+     * Reports changes collected in a transaction of the thread that was ended directly with
+     * {@link SQLiteDatabase#endTransaction()}. Called before cached data is served.
+     */
+    static void reportEnded() {
+        Pending pending = PENDING.get();
+        if (pending != null && !pending.isActive()) {
+            finish(pending, false);
+        }
+    }
+
+    private static void changed(SQLiteDatabase db, String table, boolean external) {
+        if (db.inTransaction()) {
+            Pending pending = pending(db);
+            pending.tables.add(table);
+            if (external) {
+                pending.externalTables.add(table);
+            }
+            return;
+        }
+        finish(PENDING.get(), false);
+        report(table, external);
+    }
+
+    private static Pending pending(SQLiteDatabase db) {
+        Pending pending = PENDING.get();
+        if (pending != null && !pending.isActive()) {
+            finish(pending, false);
+            pending = null;
+        }
+        if (pending == null) {
+            pending = new Pending(db);
+            PENDING.set(pending);
+        }
+        return pending;
+    }
+
+    private static void finish(Pending pending, boolean rolledBack) {
+        if (pending == null) {
+            return;
+        }
+        PENDING.remove();
+        if (rolledBack) {
+            for (int i = pending.rollbackActions.size() - 1; i >= 0; i--) {
+                pending.rollbackActions.get(i).run();
+            }
+        }
+        for (String table : pending.tables) {
+            report(table, pending.externalTables.contains(table));
+        }
+        for (Runnable action : pending.endActions) {
+            action.run();
+        }
+    }
+
+    private static void report(String table, boolean external) {
+        // bumping the version first rejects cache puts of reads that raced with the write
+        QueryCache.getInstance().invalidate(table);
+        if (external) {
+            EntityCache.tableWritten(table);
+        }
+        InvalidationTracker.getInstance().notifyChanged(table);
+    }
+
+    private static final class Pending {
+        final SQLiteDatabase db;
+        final Set<String> tables = new LinkedHashSet<>();
+        final Set<String> externalTables = new HashSet<>();
+        final List<Runnable> rollbackActions = new ArrayList<>();
+        final List<Runnable> endActions = new ArrayList<>();
+        boolean failed;
+
+        Pending(SQLiteDatabase db) {
+            this.db = db;
+        }
+
+        boolean isActive() {
+            return db.isOpen() && db.inTransaction();
+        }
+    }
+}
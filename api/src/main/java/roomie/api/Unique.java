@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a natural key column. The column gets a unique index and the entity helper gets
+ * {@code upsert} methods, which update the row holding the same key or insert a new one.
+ * An entity with a primary key updates its row directly, otherwise, or if the row is gone,
+ * the row holding any of the natural key columns is updated and its primary key is read back.
+ * An upsert fails on a unique index with {@code SQLiteConstraintException} if the natural key
+ * is spread over several rows or belongs to a row other than the one of the primary key.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Unique {
+}
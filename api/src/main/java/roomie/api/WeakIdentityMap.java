@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package roomie.api;
+
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps entities to values by identity, referencing the entities weakly, so an entry never
+ * keeps an entity in memory and doesn't depend on its {@code equals()} implementation.
+ */
+final class WeakIdentityMap<V> {
+
+    private final Map<Integer, EntryReference<V>> entries = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    synchronized void put(@NonNull Object key, @NonNull V value) {
+        purgeCollectedKeys();
+        int hash = System.identityHashCode(key);
+        EntryReference<V> reference = find(key, hash);
+        if (reference != null) {
+            reference.value = value;
+        } else {
+            entries.put(hash, new EntryReference<>(key, hash, value, entries.get(hash), queue));
+        }
+    }
+
+    @Nullable
+    synchronized V get(@NonNull Object key) {
+        EntryReference<V> reference = find(key, System.identityHashCode(key));
+        return reference != null ? reference.value : null;
+    }
+
+    synchronized void remove(@NonNull Object key) {
+        EntryReference<V> reference = find(key, System.identityHashCode(key));
+        if (reference != null) {
+            remove(reference);
+        }
+    }
+
+    @Nullable
+    private EntryReference<V> find(Object key, int hash) {
+        EntryReference<V> reference = entries.get(hash);
+        while (reference != null && reference.get() != key) {
+            reference = reference.next;
+        }
+        return reference;
+    }
+
+    private void remove(EntryReference<V> reference) {
+        EntryReference<V> head = entries.get(reference.hash);
+        if (head == reference) {
+            if (reference.next != null) {
+                entries.put(reference.hash, reference.next);
+            } else {
+                entries.remove(reference.hash);
+            }
+            return;
+        }
+        while (head != null && head.next != reference) {
+            head = head.next;
+        }
+        if (head != null) {
+            head.next = reference.next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void purgeCollectedKeys() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            remove((EntryReference<V>) reference);
+        }
+    }
+
+    private static final class EntryReference<V> extends WeakReference<Object> {
+        final int hash;
+        V value;
+        EntryReference<V> next;
+
+        EntryReference(Object key, int hash, V value, EntryReference<V> next, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
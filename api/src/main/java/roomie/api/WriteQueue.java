@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api;
+
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs writes on a single writer thread and commits them in groups: writes submitted within
+ * {@code windowMillis} of the first pending one, up to {@code maxBatchSize} of them, share one
+ * transaction. Writers don't compete for the database lock and the commit cost is paid
+ * once per group.
+ * <p>
+ * The future of a write completes once its group is committed. If the group fails, its writes
+ * are retried in separate transactions, so only the failing write reports the error. Entity
+ * helpers restore the primary keys their writes assigned in the failed group, so the retry
+ * inserts the rows again. Table changes of the group are reported to observers once its
+ * transaction ends. Writes still queued when the writer thread is interrupted complete with
+ * an error.
+ */
+public final class WriteQueue {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /**
+     * Database write executed on the writer thread inside the group transaction.
+     */
+    public interface Write {
+        @WorkerThread
+        void execute(@NonNull DatabaseProvider databaseProvider);
+    }
+
+    private static final PendingWrite SHUTDOWN = new PendingWrite(null);
+
+    private final DatabaseProvider databaseProvider;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // guards shutdown, so no write is queued after the shutdown marker
+    private final Object lock = new Object();
+    private boolean shutdown;
+
+    public WriteQueue(@NonNull DatabaseProvider databaseProvider) {
+        this(databaseProvider, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public WriteQueue(@NonNull DatabaseProvider databaseProvider, long windowMillis, int maxBatchSize) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window can't be negative");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.databaseProvider = databaseProvider;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processWrites();
+            }
+        }, "roomie-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the write.
+     *
+     * @return future completed when the group the write belongs to is committed
+     */
+    @NonNull
+    public Future<Void> submit(@NonNull Write write) {
+        PendingWrite pendingWrite = new PendingWrite(write);
+        synchronized (lock) {
+            if (shutdown) {
+                throw new IllegalStateException("Write queue is shut down");
+            }
+            queue.add(pendingWrite);
+        }
+        return pendingWrite;
+    }
+
+    /**
+     * Stops accepting writes. Already queued writes are still committed.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            if (!shutdown) {
+                shutdown = true;
+                queue.add(SHUTDOWN);
+            }
+        }
+    }
+
+    private void processWrites() {
+        try {
+            collectAndCommit();
+        } finally {
+            // the writer was interrupted or failed, the writes left would never complete otherwise
+            synchronized (lock) {
+                shutdown = true;
+            }
+            IllegalStateException error = new IllegalStateException("Write queue is shut down");
+            PendingWrite write;
+            while ((write = queue.poll()) != null) {
+                if (write != SHUTDOWN) {
+                    write.complete(error);
+                }
+            }
+        }
+    }
+
+    private void collectAndCommit() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        while (running) {
+            try {
+                PendingWrite first = queue.take();
+                if (first == SHUTDOWN) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = SystemClock.uptimeMillis() + windowMillis;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - SystemClock.uptimeMillis();
+                    PendingWrite next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.MILLISECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == SHUTDOWN) {
+                        running = false;
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        try {
+            commitOrRetry(batch);
+        } catch (Throwable e) {
+            // an Error stops the writer, the writes of the batch still complete
+            for (PendingWrite write : batch) {
+                if (!write.isDone()) {
+                    write.complete(e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void commitOrRetry(List<PendingWrite> batch) {
+        try {
+            execute(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).complete(e);
+                return;
+            }
+            for (PendingWrite write : batch) {
+                try {
+                    execute(write.asList());
+                } catch (RuntimeException writeError) {
+                    write.complete(writeError);
+                    continue;
+                }
+                write.complete(null);
+            }
+            return;
+        }
+        for (PendingWrite write : batch) {
+            write.complete(null);
+        }
+    }
+
+    private void execute(List<PendingWrite> writes) {
+        SQLiteDatabase db = databaseProvider.getWritableDatabase();
+        boolean successful = false;
+        db.beginTransaction();
+        try {
+            for (PendingWrite write : writes) {
+                write.write.execute(databaseProvider);
+            }
+            db.setTransactionSuccessful();
+            successful = true;
+        } finally {
+            Transactions.endTransaction(db, successful);
+        }
+    }
+
+    private static final class PendingWrite implements Future<Void> {
+        private final Write write;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        PendingWrite(Write write) {
+            this.write = write;
+        }
+
+        List<PendingWrite> asList() {
+            List<PendingWrite> list = new ArrayList<>(1);
+            list.add(this);
+            return list;
+        }
+
+        void complete(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false; // the write may already be part of an open transaction
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            done.await();
+            return result();
+        }
+
+        @Override
+        public Void get(long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result();
+        }
+
+        private Void result() throws ExecutionException {
+            if (error != null) {
+                throw new ExecutionException(error);
+            }
+            return null;
+        }
+    }
+}
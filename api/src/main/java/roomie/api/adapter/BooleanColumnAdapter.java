@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api.adapter;
+
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * {@link TypeAdapter} the generated code calls without boxing for {@code boolean} fields.
+ * Boxed {@code read()} and {@code bind()} delegate to the primitive methods.
+ */
+public interface BooleanColumnAdapter extends TypeAdapter<Boolean> {
+    boolean readBoolean(int position, Cursor cursor);
+
+    void bindBoolean(SQLiteStatement statement, int index, boolean value);
+
+    @Override
+    default Boolean read(int position, Cursor cursor) {
+        return readBoolean(position, cursor);
+    }
+
+    @Override
+    default void bind(SQLiteStatement statement, int index, Boolean value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            bindBoolean(statement, index, value);
+        }
+    }
+}
@@ -19,10 +19,11 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
-public class BooleanTypeAdapter implements TypeAdapter<Boolean> {
+public class BooleanTypeAdapter implements BooleanColumnAdapter {
     @Override
-    public Boolean read(int position, Cursor cursor) {
+    public boolean readBoolean(int position, Cursor cursor) {
         return cursor.getInt(position) != 0;
     }
 
@@ -30,4 +31,15 @@ public class BooleanTypeAdapter implements TypeAdapter<Boolean> {
     public void write(String key, Boolean value, ContentValues values) {
         values.put(key, (value != null && value) ? 1 : 0);
     }
+
+    @Override
+    public void bindBoolean(SQLiteStatement statement, int index, boolean value) {
+        statement.bindLong(index, value ? 1 : 0);
+    }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Boolean value) {
+        // null is stored as false
+        bindBoolean(statement, index, value != null && value);
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class ByteArrayAdapter implements TypeAdapter<byte[]> {
     @Override
@@ -30,4 +31,13 @@ public class ByteArrayAdapter implements TypeAdapter<byte[]> {
     public void write(String key, byte[] value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, byte[] value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindBlob(index, value);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class ByteTypeAdapter implements TypeAdapter<Byte> {
     @Override
@@ -30,4 +31,13 @@ public class ByteTypeAdapter implements TypeAdapter<Byte> {
     public void write(String key, Byte value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Byte value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 import java.util.Date;
 
@@ -34,4 +35,9 @@ public class DateTypeAdapter implements TypeAdapter<Date> {
     public void write(String key, Date value, ContentValues values) {
         values.put(key, value != null ? value.getTime() : 0L);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Date value) {
+        statement.bindLong(index, value != null ? value.getTime() : 0L);
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class DefaultTypeAdapter implements TypeAdapter<Object> {
     @Override
@@ -30,4 +31,9 @@ public class DefaultTypeAdapter implements TypeAdapter<Object> {
     public void write(String key, Object value, ContentValues values) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Object value) {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -19,10 +19,11 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
-public class DoubleTypeAdapter implements TypeAdapter<Double> {
+public class DoubleTypeAdapter implements DoubleColumnAdapter {
     @Override
-    public Double read(int position, Cursor cursor) {
+    public double readDouble(int position, Cursor cursor) {
         return cursor.getDouble(position);
     }
 
@@ -30,4 +31,9 @@ public class DoubleTypeAdapter implements TypeAdapter<Double> {
     public void write(String key, Double value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bindDouble(SQLiteStatement statement, int index, double value) {
+        statement.bindDouble(index, value);
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class FloatTypeAdapter implements TypeAdapter<Float> {
     @Override
@@ -30,4 +31,13 @@ public class FloatTypeAdapter implements TypeAdapter<Float> {
     public void write(String key, Float value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Float value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
 }
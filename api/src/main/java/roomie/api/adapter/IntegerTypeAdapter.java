@@ -19,10 +19,11 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
-public class IntegerTypeAdapter implements TypeAdapter<Integer> {
+public class IntegerTypeAdapter implements IntColumnAdapter {
     @Override
-    public Integer read(int position, Cursor cursor) {
+    public int readInt(int position, Cursor cursor) {
         return cursor.getInt(position);
     }
 
@@ -30,4 +31,9 @@ public class IntegerTypeAdapter implements TypeAdapter<Integer> {
     public void write(String key, Integer value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bindInt(SQLiteStatement statement, int index, int value) {
+        statement.bindLong(index, value);
+    }
 }
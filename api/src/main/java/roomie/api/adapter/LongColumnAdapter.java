@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.api.adapter;
+
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * {@link TypeAdapter} the generated code calls without boxing for {@code long} fields.
+ * Boxed {@code read()} and {@code bind()} delegate to the primitive methods.
+ */
+public interface LongColumnAdapter extends TypeAdapter<Long> {
+    long readLong(int position, Cursor cursor);
+
+    void bindLong(SQLiteStatement statement, int index, long value);
+
+    @Override
+    default Long read(int position, Cursor cursor) {
+        return readLong(position, cursor);
+    }
+
+    @Override
+    default void bind(SQLiteStatement statement, int index, Long value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            bindLong(statement, index, value);
+        }
+    }
+}
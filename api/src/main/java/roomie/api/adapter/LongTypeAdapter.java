@@ -19,10 +19,11 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
-public class LongTypeAdapter implements TypeAdapter<Long> {
+public class LongTypeAdapter implements LongColumnAdapter {
     @Override
-    public Long read(int position, Cursor cursor) {
+    public long readLong(int position, Cursor cursor) {
         return cursor.getLong(position);
     }
 
@@ -30,4 +31,9 @@ public class LongTypeAdapter implements TypeAdapter<Long> {
     public void write(String key, Long value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bindLong(SQLiteStatement statement, int index, long value) {
+        statement.bindLong(index, value);
+    }
 }
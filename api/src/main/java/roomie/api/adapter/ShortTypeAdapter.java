@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class ShortTypeAdapter implements TypeAdapter<Short> {
     @Override
@@ -30,4 +31,13 @@ public class ShortTypeAdapter implements TypeAdapter<Short> {
     public void write(String key, Short value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Short value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 public class StringTypeAdapter implements TypeAdapter<String> {
 
@@ -31,4 +32,13 @@ public class StringTypeAdapter implements TypeAdapter<String> {
     public void write(String key, String value, ContentValues values) {
         values.put(key, value);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
 }
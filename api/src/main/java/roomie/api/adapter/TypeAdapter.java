@@ -19,9 +19,24 @@ package roomie.api.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteStatement;
 
 public interface TypeAdapter<T> {
     T read(int position, Cursor cursor);
 
     void write(String key, T value, ContentValues values);
+
+    /**
+     * Binds the value to a compiled statement at the given 1-based index.
+     * <p>
+     * The default implementation goes through {@link #write(String, Object, ContentValues)}
+     * and allocates on every call, so adapters used on hot paths should override it with
+     * a typed {@code bindXXX()} call.
+     */
+    default void bind(SQLiteStatement statement, int index, T value) {
+        ContentValues values = new ContentValues(1);
+        write("value", value, values);
+        DatabaseUtils.bindObjectToProgram(statement, index, values.get("value"));
+    }
 }
@@ -24,41 +24,86 @@ import java.util.Map;
 
 public class TypeAdapterRegistry {
 
+    /**
+     * Creates an adapter missing in the registry. Generated helpers construct their adapters
+     * directly, so the registry never has to use reflection for them.
+     */
+    public interface Factory<T extends TypeAdapter<?>> {
+        @NonNull
+        T create();
+    }
+
     private static final TypeAdapterRegistry INSTANCE = new TypeAdapterRegistry();
 
-    private final Map<Class, TypeAdapter> registry = new HashMap<>();
+    private final Object lock = new Object();
+
+    // copy-on-write, lookups read the current map without locking
+    private volatile Map<Class<?>, TypeAdapter<?>> registry;
 
     private TypeAdapterRegistry() {
-        registry.put(BooleanTypeAdapter.class, new BooleanTypeAdapter());
-        registry.put(ByteArrayAdapter.class, new ByteArrayAdapter());
-        registry.put(ByteTypeAdapter.class, new ByteTypeAdapter());
-        registry.put(DateTypeAdapter.class, new DateTypeAdapter());
-        registry.put(DoubleTypeAdapter.class, new DoubleTypeAdapter());
-        registry.put(FloatTypeAdapter.class, new FloatTypeAdapter());
-        registry.put(IntegerTypeAdapter.class, new IntegerTypeAdapter());
-        registry.put(LongTypeAdapter.class, new LongTypeAdapter());
-        registry.put(ShortTypeAdapter.class, new ShortTypeAdapter());
-        registry.put(StringTypeAdapter.class, new StringTypeAdapter());
+        Map<Class<?>, TypeAdapter<?>> defaults = new HashMap<>();
+        defaults.put(BooleanTypeAdapter.class, new BooleanTypeAdapter());
+        defaults.put(ByteArrayAdapter.class, new ByteArrayAdapter());
+        defaults.put(ByteTypeAdapter.class, new ByteTypeAdapter());
+        defaults.put(DateTypeAdapter.class, new DateTypeAdapter());
+        defaults.put(DoubleTypeAdapter.class, new DoubleTypeAdapter());
+        defaults.put(FloatTypeAdapter.class, new FloatTypeAdapter());
+        defaults.put(IntegerTypeAdapter.class, new IntegerTypeAdapter());
+        defaults.put(LongTypeAdapter.class, new LongTypeAdapter());
+        defaults.put(ShortTypeAdapter.class, new ShortTypeAdapter());
+        defaults.put(StringTypeAdapter.class, new StringTypeAdapter());
+        registry = defaults;
     }
 
     public static TypeAdapterRegistry getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * Returns the registered adapter of the given class. The adapter is created with
+     * {@code factory} and registered if it's missing, concurrent lookups of a missing adapter
+     * create it only once.
+     */
     @SuppressWarnings("unchecked")
     @NonNull
-    public <T extends TypeAdapter> T getTypeAdapter(Class<T> typeAdapterClass) {
+    public <T extends TypeAdapter<?>> T getTypeAdapter(@NonNull Class<T> typeAdapterClass, @NonNull Factory<T> factory) {
         T adapter = (T) registry.get(typeAdapterClass);
-        if (adapter == null) {
-            try {
-                adapter = typeAdapterClass.newInstance();
-                registry.put(typeAdapterClass, adapter);
-            } catch (InstantiationException e) {
-                throw new RuntimeException("TypeAdapter must have a default constructor", e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("TypeAdapter must have a default public constructor", e);
+        if (adapter != null) {
+            return adapter;
+        }
+        synchronized (lock) {
+            adapter = (T) registry.get(typeAdapterClass);
+            if (adapter == null) {
+                adapter = factory.create();
+                // the factory may have registered other adapters, copy the map after it
+                Map<Class<?>, TypeAdapter<?>> updated = new HashMap<>(registry);
+                updated.put(typeAdapterClass, adapter);
+                registry = updated;
             }
         }
         return adapter;
     }
+
+    /**
+     * Reflective variant kept for helpers generated by older versions of the processor.
+     *
+     * @deprecated use {@link #getTypeAdapter(Class, Factory)}
+     */
+    @Deprecated
+    @NonNull
+    public <T extends TypeAdapter<?>> T getTypeAdapter(@NonNull final Class<T> typeAdapterClass) {
+        return getTypeAdapter(typeAdapterClass, new Factory<T>() {
+            @NonNull
+            @Override
+            public T create() {
+                try {
+                    return typeAdapterClass.newInstance();
+                } catch (InstantiationException e) {
+                    throw new RuntimeException("TypeAdapter must have a default constructor", e);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("TypeAdapter must have a default public constructor", e);
+                }
+            }
+        });
+    }
 }
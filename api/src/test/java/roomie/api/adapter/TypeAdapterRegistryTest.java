@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package roomie.api.adapter;
+
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypeAdapterRegistryTest {
+
+    private static final int THREADS = 16;
+    private static final int LOOKUPS = 200;
+
+    @Test
+    public void parallelLookupsCreateMissingAdapterOnce() throws Exception {
+        CountingFactory<FirstAdapter> factory = new CountingFactory<FirstAdapter>() {
+            @NonNull
+            @Override
+            FirstAdapter newAdapter() {
+                return new FirstAdapter();
+            }
+        };
+
+        List<TypeAdapter<?>> adapters = lookUpInParallel(new Lookup() {
+            @Override
+            public TypeAdapter<?> lookUp(int thread, int iteration) {
+                return TypeAdapterRegistry.getInstance().getTypeAdapter(FirstAdapter.class, factory);
+            }
+        });
+
+        assertEquals(1, factory.created.get());
+        for (TypeAdapter<?> adapter : adapters) {
+            assertSame(adapters.get(0), adapter);
+        }
+    }
+
+    @Test
+    public void parallelLookupsOfDifferentAdaptersKeepAllOfThem() throws Exception {
+        CountingFactory<SecondAdapter> secondFactory = new CountingFactory<SecondAdapter>() {
+            @NonNull
+            @Override
+            SecondAdapter newAdapter() {
+                return new SecondAdapter();
+            }
+        };
+        CountingFactory<ThirdAdapter> thirdFactory = new CountingFactory<ThirdAdapter>() {
+            @NonNull
+            @Override
+            ThirdAdapter newAdapter() {
+                return new ThirdAdapter();
+            }
+        };
+
+        lookUpInParallel(new Lookup() {
+            @Override
+            public TypeAdapter<?> lookUp(int thread, int iteration) {
+                TypeAdapterRegistry registry = TypeAdapterRegistry.getInstance();
+                return (thread + iteration) % 2 == 0
+                        ? registry.getTypeAdapter(SecondAdapter.class, secondFactory)
+                        : registry.getTypeAdapter(ThirdAdapter.class, thirdFactory);
+            }
+        });
+
+        // a lost copy-on-write update would make the registry create the adapter again
+        TypeAdapterRegistry registry = TypeAdapterRegistry.getInstance();
+        assertSame(registry.getTypeAdapter(SecondAdapter.class, secondFactory),
+                registry.getTypeAdapter(SecondAdapter.class, secondFactory));
+        assertSame(registry.getTypeAdapter(ThirdAdapter.class, thirdFactory),
+                registry.getTypeAdapter(ThirdAdapter.class, thirdFactory));
+        assertEquals(1, secondFactory.created.get());
+        assertEquals(1, thirdFactory.created.get());
+    }
+
+    private static List<TypeAdapter<?>> lookUpInParallel(final Lookup lookup) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<TypeAdapter<?>>>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<List<TypeAdapter<?>>>() {
+                    @Override
+                    public List<TypeAdapter<?>> call() throws Exception {
+                        start.await();
+                        List<TypeAdapter<?>> adapters = new ArrayList<>(LOOKUPS);
+                        for (int iteration = 0; iteration < LOOKUPS; iteration++) {
+                            adapters.add(lookup.lookUp(thread, iteration));
+                        }
+                        return adapters;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<TypeAdapter<?>> adapters = new ArrayList<>(THREADS * LOOKUPS);
+            for (Future<List<TypeAdapter<?>>> future : futures) {
+                adapters.addAll(future.get(10, TimeUnit.SECONDS));
+            }
+            return adapters;
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private interface Lookup {
+        TypeAdapter<?> lookUp(int thread, int iteration);
+    }
+
+    private abstract static class CountingFactory<T extends TypeAdapter<?>> implements TypeAdapterRegistry.Factory<T> {
+        final AtomicInteger created = new AtomicInteger();
+
+        @NonNull
+        @Override
+        public T create() {
+            created.incrementAndGet();
+            // widen the window in which other threads miss the adapter
+            Thread.yield();
+            return newAdapter();
+        }
+
+        @NonNull
+        abstract T newAdapter();
+    }
+
+    private static class StubAdapter implements TypeAdapter<String> {
+        @Override
+        public String read(int position, Cursor cursor) {
+            return null;
+        }
+
+        @Override
+        public void write(String key, String value, ContentValues values) {
+        }
+    }
+
+    private static final class FirstAdapter extends StubAdapter {
+    }
+
+    private static final class SecondAdapter extends StubAdapter {
+    }
+
+    private static final class ThirdAdapter extends StubAdapter {
+    }
+}
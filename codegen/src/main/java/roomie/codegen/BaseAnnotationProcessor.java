@@ -52,20 +52,20 @@ public abstract class BaseAnnotationProcessor extends AbstractProcessor {
     }
 
     protected void writeSourceFile(String className, String packageName, TypeSpec classContent,
-            Element originatingElement) throws AbortProcessingException {
+            Element... originatingElements) throws AbortProcessingException {
         try {
             String qualifiedName = toQualifiedName(packageName, className);
             JavaFile javaFile = JavaFile.builder(packageName, classContent)
                     .indent(DEFAULT_INDENTATION)
                     .addFileComment(DEFAULT_FILE_COMMENT, getClass().getSimpleName())
                     .build();
-            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElement);
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElements);
             try (Writer writer = sourceFile.openWriter()) {
                 writer.write(javaFile.toString());
             }
         } catch (IOException e) {
             throw new AbortProcessingException(e,
-                    originatingElement,
+                    originatingElements.length > 0 ? originatingElements[0] : null,
                     "Could not write generated class %s: %s",
                     className,
                     e);
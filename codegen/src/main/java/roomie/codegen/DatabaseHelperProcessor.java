@@ -0,0 +1,328 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+
+import roomie.api.DatabaseConfig;
+import roomie.api.Entity;
+import roomie.api.GeneratedEntityHelper;
+import roomie.codegen.schema.DatabaseSchema;
+import roomie.codegen.schema.SchemaChange;
+import roomie.codegen.schema.SchemaExporter;
+import roomie.codegen.schema.TableSchema;
+
+/**
+ * Assembles {@code RoomieDatabaseHelper} from the helpers {@link EntityHelperProcessor} generated.
+ * The helpers carry everything the database helper needs in {@link GeneratedEntityHelper},
+ * so unchanged entities aren't processed again on incremental builds.
+ */
+@SuppressWarnings("unused") // class is used by @AutoService
+@AutoService(Processor.class)
+@SupportedAnnotationTypes({"roomie.api.GeneratedEntityHelper", "roomie.api.DatabaseConfig"})
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+@SupportedOptions({DatabaseHelperProcessor.DB_HELPER_PACKAGE_KEY, DatabaseHelperProcessor.SCHEMA_LOCATION_KEY})
+public class DatabaseHelperProcessor extends BaseAnnotationProcessor {
+    static final String DB_HELPER_PACKAGE_KEY = "roomie.dbHelperPackage";
+    static final String SCHEMA_LOCATION_KEY = "roomie.schemaLocation";
+
+    private static final String DB_HELPER_CLASS_NAME = "RoomieDatabaseHelper";
+
+    private String databaseHelperPackage;
+    private String schemaLocation;
+
+    // sorted by name to keep the generated class stable regardless of the processing order
+    private final Map<String, TypeElement> helpers = new TreeMap<>();
+    private DatabaseConfig config;
+    private Element configElement;
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        String defaultHelperPackage = Entity.class.getPackage().toString();
+        databaseHelperPackage = processingEnv.getOptions().getOrDefault(DB_HELPER_PACKAGE_KEY, defaultHelperPackage);
+        schemaLocation = processingEnv.getOptions().get(SCHEMA_LOCATION_KEY);
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        if (generated) {
+            return true;
+        }
+
+        try {
+            DatabaseConfig roundConfig = obtainDatabaseConfig(roundEnv);
+            if (roundConfig != null) {
+                config = roundConfig;
+                configElement = roundEnv.getElementsAnnotatedWith(DatabaseConfig.class).iterator().next();
+            }
+        } catch (AbortProcessingException e) {
+            logger.error(e.getAssociatedElement(), e.getMessage());
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(GeneratedEntityHelper.class)) {
+            TypeElement helper = (TypeElement) element;
+            helpers.put(helper.getQualifiedName().toString(), helper);
+        }
+        if (helpers.isEmpty() || !roundEnv.getElementsAnnotatedWith(Entity.class).isEmpty()) {
+            return true; // helpers of the entities in this round show up in the next one
+        }
+
+        generated = true;
+        try {
+            generateDatabaseHelper();
+            if (schemaLocation != null) {
+                exportSchema();
+            }
+        } catch (AbortProcessingException e) {
+            logger.error(e.getAssociatedElement(), e.getMessage());
+        }
+
+        return true;
+    }
+
+    private DatabaseConfig obtainDatabaseConfig(RoundEnvironment roundEnv) throws AbortProcessingException {
+        Set<? extends Element> configuredClasses = roundEnv.getElementsAnnotatedWith(DatabaseConfig.class);
+        if (configuredClasses.isEmpty()) {
+            return null;
+        }
+        Element element = configuredClasses.iterator().next();
+        if (configuredClasses.size() > 1) {
+            throw new AbortProcessingException(
+                    element,
+                    "Only one class can declare %s",
+                    DatabaseConfig.class.getSimpleName());
+        }
+
+        DatabaseConfig config = element.getAnnotation(DatabaseConfig.class);
+        int pageSize = config.pageSize();
+        if (pageSize != 0 && (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1)) {
+            throw new AbortProcessingException(
+                    element,
+                    "Page size must be a power of two between 512 and 65536, but was %d",
+                    pageSize);
+        }
+        if (config.mmapSize() < 0) {
+            throw new AbortProcessingException(element, "Memory map size can't be negative");
+        }
+        return config;
+    }
+
+    private void generateDatabaseHelper() throws AbortProcessingException {
+        List<ClassName> helperNames = new ArrayList<>(helpers.size());
+        List<Element> originatingElements = new ArrayList<>(helpers.size() + 1);
+        for (TypeElement helper : helpers.values()) {
+            helperNames.add(ClassName.get(helper));
+            originatingElements.add(helper);
+        }
+        if (configElement != null) {
+            originatingElements.add(configElement);
+        }
+        TypeSpec dbHelperContent = generateDatabaseHelperClass(helperNames, config);
+
+        writeSourceFile(DB_HELPER_CLASS_NAME, databaseHelperPackage, dbHelperContent,
+                originatingElements.toArray(new Element[0]));
+    }
+
+    private TypeSpec generateDatabaseHelperClass(List<ClassName> helpers, DatabaseConfig config) {
+        TypeSpec.Builder classBuilder = TypeSpec.classBuilder(DB_HELPER_CLASS_NAME);
+        classBuilder.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
+        classBuilder.superclass(ClassName.bestGuess("android.database.sqlite.SQLiteOpenHelper"));
+
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ClassName.bestGuess("android.content.Context"), "context")
+                .addParameter(String.class, "name")
+                .addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase.CursorFactory"), "factory")
+                .addParameter(int.class, "version")
+                .addStatement("super(context, name, factory, version)")
+                .build());
+
+        if (config != null) {
+            classBuilder.addMethod(generateOnConfigure(config));
+            classBuilder.addMethod(generateExecutePragma());
+        }
+        classBuilder.addMethod(generateOnCreate(helpers));
+        classBuilder.addMethod(generateOnUpgrade(helpers));
+
+        return classBuilder.build();
+    }
+
+    private MethodSpec generateOnConfigure(DatabaseConfig config) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("onConfigure");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
+
+        method.addStatement("super.onConfigure(database)");
+        if (config.pageSize() != 0) {
+            // must precede WAL, the page size can't be changed in WAL mode
+            method.addStatement("executePragma(database, $S)", "PRAGMA page_size = " + config.pageSize());
+        }
+        if (config.writeAheadLogging()) {
+            method.addStatement("database.enableWriteAheadLogging()");
+        }
+        if (config.synchronous() != DatabaseConfig.Synchronous.DEFAULT) {
+            method.addStatement("executePragma(database, $S)", "PRAGMA synchronous = " + config.synchronous().name());
+        }
+        if (config.mmapSize() != 0) {
+            method.addStatement("executePragma(database, $S)", "PRAGMA mmap_size = " + config.mmapSize());
+        }
+        if (config.cacheSize() != 0) {
+            method.addStatement("executePragma(database, $S)", "PRAGMA cache_size = " + config.cacheSize());
+        }
+
+        return method.build();
+    }
+
+    private MethodSpec generateExecutePragma() {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("executePragma");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
+        method.addParameter(String.class, "pragma");
+
+        // some pragmas report the new value as a row, which execSQL() refuses
+        method.addStatement("$T cursor = database.rawQuery(pragma, null)", ClassName.bestGuess("android.database.Cursor"));
+        method.beginControlFlow("try");
+        method.addStatement("cursor.moveToFirst()");
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+
+        return method.build();
+    }
+
+    private MethodSpec generateOnCreate(List<ClassName> helpers) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("onCreate");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
+
+        for (ClassName helper : helpers) {
+            method.addStatement("database.execSQL($T.CREATE_STATEMENT)", helper);
+            method.beginControlFlow("for ($T statement : $T.INDEX_STATEMENTS)", String.class, helper);
+            method.addStatement("database.execSQL(statement)");
+            method.endControlFlow();
+        }
+
+        return method.build();
+    }
+
+    private MethodSpec generateOnUpgrade(List<ClassName> helpers) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("onUpgrade");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
+        method.addParameter(int.class, "oldVersion");
+        method.addParameter(int.class, "newVersion");
+
+        for (ClassName helper : helpers) {
+            method.addStatement("$T.migrate(database, oldVersion)", helper);
+        }
+
+        return method.build();
+    }
+
+    private void exportSchema() throws AbortProcessingException {
+        Map<TableSchema, TypeElement> entities = new LinkedHashMap<>();
+        int version = 1;
+        for (TypeElement helper : helpers.values()) {
+            GeneratedEntityHelper info = helper.getAnnotation(GeneratedEntityHelper.class);
+            TableSchema table = SchemaExporter.tableFromJson(info.schema());
+            entities.put(table, getEntityElement(info));
+            version = Math.max(version, table.getVersion());
+        }
+        DatabaseSchema schema = new DatabaseSchema(version);
+        schema.getTables().addAll(entities.keySet());
+
+        File directory = new File(schemaLocation, databaseHelperPackage + "." + DB_HELPER_CLASS_NAME);
+        SchemaExporter exporter = new SchemaExporter(directory);
+        DatabaseSchema previous;
+        try {
+            previous = exporter.readPrevious(version);
+            exporter.export(schema);
+        } catch (IOException e) {
+            throw new AbortProcessingException(e, null, "Unable to export database schema to %s", directory);
+        }
+        if (previous == null) {
+            return;
+        }
+
+        List<SchemaChange> changes = SchemaExporter.diff(previous, schema);
+        if (changes.isEmpty()) {
+            logger.info(null, "No schema changes since version %d", previous.getVersion());
+            return;
+        }
+        logger.info(null, "Schema changes from version %d to %d:", previous.getVersion(), version);
+        for (SchemaChange change : changes) {
+            logger.info(null, "  %s", change);
+        }
+        for (Map.Entry<TableSchema, TypeElement> entity : entities.entrySet()) {
+            TableSchema table = entity.getKey();
+            TableSchema previousTable = previous.findTable(table.getName());
+            if (previousTable == null || table.getVersion() > previousTable.getVersion()) {
+                continue;
+            }
+            for (SchemaChange change : changes) {
+                if (change.getTable().equals(table.getName())
+                        && change.getKind() != SchemaChange.Kind.OBSOLETE) {
+                    logger.warn(entity.getValue(),
+                            "Table %s changed since schema version %d but its version is still %d, "
+                                    + "existing databases won't be migrated",
+                            table.getName(), previous.getVersion(), table.getVersion());
+                    break;
+                }
+            }
+        }
+    }
+
+    private TypeElement getEntityElement(GeneratedEntityHelper info) {
+        try {
+            info.entity();
+            throw new IllegalStateException("Entity class is expected to be a mirrored type");
+        } catch (MirroredTypeException e) {
+            return (TypeElement) processingEnv.getTypeUtils().asElement(e.getTypeMirror());
+        }
+    }
+}
@@ -18,6 +18,7 @@ package roomie.codegen;
 
 
 import com.google.auto.service.AutoService;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
@@ -27,59 +28,89 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
-import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
-import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.MirroredTypeException;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
 
+import roomie.api.ChangeTracker;
 import roomie.api.Column;
 import roomie.api.DatabaseProvider;
+import roomie.api.CursorIterator;
 import roomie.api.DatabaseType;
 import roomie.api.Entity;
+import roomie.api.EntityCache;
+import roomie.api.EntityConsumer;
 import roomie.api.EntityHelper;
+import roomie.api.GeneratedEntityHelper;
+import roomie.api.InClause;
+import roomie.api.Index;
+import roomie.api.InvalidationTracker;
+import roomie.api.LazyColumns;
+import roomie.api.ObservableQuery;
+import roomie.api.Page;
+import roomie.api.PageKey;
 import roomie.api.PrimaryKey;
+import roomie.api.QueryCache;
+import roomie.api.ResultCallback;
+import roomie.api.RowMapper;
+import roomie.api.SchemaMigration;
+import roomie.api.StatementCache;
+import roomie.api.Subscription;
+import roomie.api.Transactions;
+import roomie.api.Unique;
+import roomie.api.adapter.BooleanColumnAdapter;
 import roomie.api.adapter.DefaultTypeAdapter;
+import roomie.api.adapter.DoubleColumnAdapter;
+import roomie.api.adapter.IntColumnAdapter;
+import roomie.api.adapter.LongColumnAdapter;
 import roomie.api.adapter.TypeAdapter;
 import roomie.api.adapter.TypeAdapterRegistry;
+import roomie.codegen.schema.ColumnSchema;
+import roomie.codegen.schema.IndexSchema;
+import roomie.codegen.schema.SchemaExporter;
+import roomie.codegen.schema.TableSchema;
+import roomie.codegen.util.InlineAccessors;
 import roomie.codegen.util.TypeMapping;
 
 @SuppressWarnings("unused") // class is used by @AutoService
 @AutoService(Processor.class)
 @SupportedAnnotationTypes("roomie.api.Entity")
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
-@SupportedOptions(EntityHelperProcessor.DB_HELPER_PACKAGE_KEY)
 public class EntityHelperProcessor extends BaseAnnotationProcessor {
-    static final String DB_HELPER_PACKAGE_KEY = "roomie.dbHelperPackage";
-
-    private static final String ENTITY_HELPER_POSTFIX = "Helper";
-    private static final String DB_HELPER_CLASS_NAME = "RoomieDatabaseHelper";
-
-    private String databaseHelperPackage;
-
-    @Override
-    public synchronized void init(ProcessingEnvironment processingEnv) {
-        super.init(processingEnv);
-
-        String defaultHelperPackage = Entity.class.getPackage().toString();
-        databaseHelperPackage = processingEnv.getOptions().getOrDefault(DB_HELPER_PACKAGE_KEY, defaultHelperPackage);
-    }
+    static final String ENTITY_HELPER_POSTFIX = "Helper";
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations,
@@ -90,7 +121,6 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
             return true; // early exit
         }
 
-        List<ClassName> helpers = new ArrayList<>(annotatedClasses.size());
         for (Element element : annotatedClasses) {
             if (element.getKind() != ElementKind.CLASS) {
                 logger.error(element,
@@ -108,7 +138,6 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
 
             String packageName = getPackageName(element);
             String className = type.getSimpleName() + ENTITY_HELPER_POSTFIX;
-            helpers.add(ClassName.get(packageName, className));
 
             try {
                 TypeSpec fileContent = generateEntityClass(type, className);
@@ -119,65 +148,26 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
             }
         }
 
-        try {
-            generateDatabaseHelper(helpers);
-        } catch (AbortProcessingException e) {
-            logger.error(e.getAssociatedElement(), e.getMessage());
-        }
-
         return true;
     }
 
-    private void generateDatabaseHelper(List<ClassName> helpers) throws AbortProcessingException {
-        TypeSpec dbHelperContent = generateDatabaseHelperClass(helpers);
-
-        writeSourceFile(DB_HELPER_CLASS_NAME, databaseHelperPackage, dbHelperContent, null);
-    }
-
-    private TypeSpec generateDatabaseHelperClass(List<ClassName> helpers) {
-        TypeSpec.Builder classBuilder = TypeSpec.classBuilder(DB_HELPER_CLASS_NAME);
-        classBuilder.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT);
-        classBuilder.superclass(ClassName.bestGuess("android.database.sqlite.SQLiteOpenHelper"));
-
-        classBuilder.addMethod(MethodSpec.constructorBuilder()
-                .addModifiers(Modifier.PUBLIC)
-                .addParameter(ClassName.bestGuess("android.content.Context"), "context")
-                .addParameter(String.class, "name")
-                .addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase.CursorFactory"), "factory")
-                .addParameter(int.class, "version")
-                .addStatement("super(context, name, factory, version)")
-                .build());
-
-        classBuilder.addMethod(generateOnCreate(helpers));
-        classBuilder.addMethod(generateOnUpgrade());
-
-        return classBuilder.build();
-    }
-
-    private MethodSpec generateOnCreate(List<ClassName> helpers) {
-        MethodSpec.Builder method = MethodSpec.methodBuilder("onCreate");
-        method.addAnnotation(Override.class);
-        method.addModifiers(Modifier.PUBLIC);
-        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
-
-        for (ClassName helper : helpers) {
-            method.addStatement("database.execSQL($T.CREATE_STATEMENT)", helper);
+    private TableSchema createTableSchema(EntityMetadata metadata) throws AbortProcessingException {
+        TableSchema table = new TableSchema(metadata.getTableName(), metadata.getVersion(),
+                getCreateTableSql(metadata));
+        for (VariableElement column : metadata.getAllColumns()) {
+            table.getColumns().add(new ColumnSchema(getColumnName(column),
+                    getDatabaseType(column),
+                    getDefaultValue(column),
+                    column.getAnnotation(PrimaryKey.class) != null));
         }
-
-        return method.build();
-    }
-
-    private MethodSpec generateOnUpgrade() {
-        MethodSpec.Builder method = MethodSpec.methodBuilder("onUpgrade");
-        method.addAnnotation(Override.class);
-        method.addModifiers(Modifier.PUBLIC);
-        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
-        method.addParameter(int.class, "oldVersion");
-        method.addParameter(int.class, "newVersion");
-
-        method.addComment("NO-OP");
-
-        return method.build();
+        for (IndexMetadata index : metadata.getIndices()) {
+            table.getIndices().add(new IndexSchema(index.getName(),
+                    index.getColumns(),
+                    index.isUnique(),
+                    StringUtils.defaultIfEmpty(index.getWhere(), null),
+                    index.getCreateStatement(metadata.getTableName())));
+        }
+        return table;
     }
 
     private TypeSpec generateEntityClass(TypeElement annotatedClass, String className) throws AbortProcessingException {
@@ -186,20 +176,233 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         classBuilder.addSuperinterface(ParameterizedTypeName.get(ClassName.get(EntityHelper.class), ClassName.get(annotatedClass)));
 
         EntityMetadata metadata = obtainEntityMetadata(annotatedClass);
+        classBuilder.addAnnotation(AnnotationSpec.builder(GeneratedEntityHelper.class)
+                .addMember("entity", "$T.class", annotatedClass)
+                .addMember("schema", "$S", SchemaExporter.toJson(createTableSchema(metadata)))
+                .build());
+        Map<TypeName, String> typeAdapters = collectTypeAdapters(metadata);
 
+        classBuilder.addField(FieldSpec.builder(TypeName.INT, "SCHEMA_VERSION",
+                Modifier.PUBLIC,
+                Modifier.STATIC,
+                Modifier.FINAL)
+                .initializer("$L", metadata.getVersion())
+                .build());
         classBuilder.addField(generateCreateTableStatement(annotatedClass, metadata));
-        classBuilder.addField(generateProjection(annotatedClass, metadata));
+        classBuilder.addField(generateIndexStatements(annotatedClass, metadata));
+        for (Map.Entry<TypeName, String> typeAdapter : typeAdapters.entrySet()) {
+            classBuilder.addField(generateTypeAdapterField(typeAdapter.getKey(), typeAdapter.getValue()));
+        }
+        classBuilder.addField(generateProjection("PROJECTION", metadata.getEagerColumns()));
+        if (!metadata.getLazyColumns().isEmpty()) {
+            classBuilder.addField(generateProjection("DEFERRED_PROJECTION", metadata.getLazyColumns()));
+            List<VariableElement> fullProjection = metadata.getEagerColumns();
+            fullProjection.addAll(metadata.getLazyColumns());
+            classBuilder.addField(generateProjection("FULL_PROJECTION", fullProjection));
+        }
+        classBuilder.addField(generateInsertStatement(annotatedClass, metadata));
+        classBuilder.addField(generateUpdateStatement(annotatedClass, metadata));
+        classBuilder.addField(generateDeleteStatement(annotatedClass, metadata));
+        boolean hasUniqueColumns = !metadata.getUniqueColumns().isEmpty();
+        if (hasUniqueColumns) {
+            classBuilder.addField(generateUpdateByUniqueStatement(annotatedClass, metadata));
+            classBuilder.addField(generateFindByUniqueStatement(annotatedClass, metadata));
+        }
+        classBuilder.addField(FieldSpec.builder(StatementCache.class, "STATEMENTS",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL)
+                .initializer("new $T()", StatementCache.class)
+                .build());
+        if (metadata.isCacheEnabled()) {
+            classBuilder.addField(generateCache(annotatedClass, metadata));
+        }
+        if (metadata.isTrackChanges()) {
+            classBuilder.addField(FieldSpec.builder(ChangeTracker.class, "TRACKER",
+                    Modifier.PRIVATE,
+                    Modifier.STATIC,
+                    Modifier.FINAL)
+                    .initializer("new $T()", ChangeTracker.class)
+                    .build());
+        }
+        if (!metadata.getLazyColumns().isEmpty()) {
+            classBuilder.addField(FieldSpec.builder(LazyColumns.class, "LAZY",
+                    Modifier.PRIVATE,
+                    Modifier.STATIC,
+                    Modifier.FINAL)
+                    .initializer("new $T()", LazyColumns.class)
+                    .build());
+        }
+        classBuilder.addField(generateRowMapper(annotatedClass, metadata));
+        // helpers are stateless, entities share the single instance
+        ClassName helperClass = ClassName.get(getPackageName(annotatedClass), className);
+        classBuilder.addField(FieldSpec.builder(helperClass, "INSTANCE",
+                Modifier.PUBLIC,
+                Modifier.STATIC,
+                Modifier.FINAL)
+                .initializer("new $T()", helperClass)
+                .build());
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PRIVATE)
+                .build());
         classBuilder.addMethod(generateQueryAll(annotatedClass, metadata));
+        classBuilder.addMethod(generateIterateAll(annotatedClass, metadata));
+        classBuilder.addMethod(generateForEach(annotatedClass, metadata));
+        classBuilder.addMethod(generateMigrate(annotatedClass, metadata));
+        classBuilder.addMethod(generateObserveAll(annotatedClass, metadata));
+        classBuilder.addMethod(generateObserveById(annotatedClass, metadata));
+        classBuilder.addMethod(generateQueryPage(annotatedClass, metadata, null));
+        for (VariableElement column : metadata.getColumns()) {
+            if (column.getAnnotation(Column.class).sortable()) {
+                classBuilder.addMethod(generateQueryPage(annotatedClass, metadata, column));
+            }
+        }
+        for (VariableElement column : metadata.getColumns()) {
+            if (isIndexed(metadata, column) && !DatabaseType.BLOB.equals(getDatabaseType(column))) {
+                classBuilder.addMethod(generateFindBy(annotatedClass, metadata, column, typeAdapters, false));
+                classBuilder.addMethod(generateFindBy(annotatedClass, metadata, column, typeAdapters, true));
+            }
+        }
+        classBuilder.addMethod(generateCount(annotatedClass, metadata));
+        classBuilder.addMethod(generateExists(annotatedClass, metadata));
+        for (VariableElement column : metadata.getColumns()) {
+            TypeName columnType = TypeName.get(column.asType());
+            TypeName numericType = columnType.isBoxedPrimitive() ? columnType.unbox() : columnType;
+            if (!isInlineType(column, getTypeAdapter(column))
+                    || !numericType.isPrimitive() || TypeName.BOOLEAN.equals(numericType)) {
+                continue;
+            }
+            boolean integral = !TypeName.DOUBLE.equals(numericType) && !TypeName.FLOAT.equals(numericType);
+            for (String function : new String[] {"sum", "min", "max", "avg"}) {
+                classBuilder.addMethod(generateAggregate(metadata, column, function, integral));
+            }
+        }
+        for (VariableElement column : metadata.getColumns()) {
+            if (column.getAnnotation(Column.class).groupable()) {
+                classBuilder.addMethod(generateCountBy(metadata, column, typeAdapters));
+            }
+        }
         classBuilder.addMethod(generateLoadEntity(annotatedClass, metadata));
+        if (!metadata.getLazyColumns().isEmpty()) {
+            classBuilder.addMethod(generateLoadDeferred(annotatedClass, metadata));
+        }
+        classBuilder.addMethod(generateLoadAll(annotatedClass, metadata));
         classBuilder.addMethod(generateSaveEntity(annotatedClass, metadata));
+        classBuilder.addMethod(generateSaveAllEntities(annotatedClass, metadata));
+        if (hasUniqueColumns) {
+            classBuilder.addMethod(generateUpsertEntity(annotatedClass, metadata));
+            classBuilder.addMethod(generateUpsertAllEntities(annotatedClass, metadata));
+            classBuilder.addMethod(generateUpsertRow(annotatedClass, metadata));
+            classBuilder.addMethod(generateBindUnique(annotatedClass, metadata, typeAdapters));
+        }
         classBuilder.addMethod(generateDeleteEntity(annotatedClass, metadata));
+        classBuilder.addMethod(generateDeleteAll(annotatedClass, metadata));
         classBuilder.addMethod(generateToString(annotatedClass, metadata));
-        classBuilder.addMethod(generateReadData(annotatedClass, metadata));
-        classBuilder.addMethod(generateWriteData(annotatedClass, metadata));
+        classBuilder.addMethod(generateReadData(annotatedClass, metadata, typeAdapters));
+        if (!metadata.getLazyColumns().isEmpty()) {
+            classBuilder.addMethod(generateReadDeferredData(annotatedClass, metadata, typeAdapters));
+        }
+        classBuilder.addMethod(generateWriteData(annotatedClass, metadata, typeAdapters));
+        if (metadata.isCacheEnabled() || metadata.isCacheQueries()) {
+            classBuilder.addMethod(generateCopy(annotatedClass, metadata));
+        }
+        if (metadata.isCacheEnabled()) {
+            classBuilder.addMethod(generateUpdateCache(annotatedClass, metadata));
+            classBuilder.addMethod(generateCacheCount("cacheHitCount", "hitCount"));
+            classBuilder.addMethod(generateCacheCount("cacheMissCount", "missCount"));
+        }
+        if (metadata.isCacheQueries()) {
+            classBuilder.addMethod(generateCopyAll(annotatedClass, metadata));
+        }
+        if (metadata.isTrackChanges()) {
+            classBuilder.addMethod(generateTakeSnapshot(annotatedClass, metadata));
+            classBuilder.addMethod(generateUpdateChanges(annotatedClass, metadata, typeAdapters));
+        }
+        classBuilder.addMethod(generateRestoreIds(annotatedClass, metadata));
+        classBuilder.addMethod(generateBindData(annotatedClass, metadata, typeAdapters));
 
         return classBuilder.build();
     }
 
+    Map<TypeName, String> collectTypeAdapters(EntityMetadata metadata) throws AbortProcessingException {
+        Map<TypeName, String> typeAdapters = new LinkedHashMap<>();
+        for (VariableElement column : metadata.getAllColumns()) {
+            TypeName typeAdapter = getTypeAdapter(column);
+            if (typeAdapter == null) {
+                throw new AbortProcessingException(
+                        column,
+                        "%s has unsupported type %s for saving to database",
+                        column.getSimpleName(), column.asType());
+            }
+            if (isInlineType(column, typeAdapter) || typeAdapters.containsKey(typeAdapter)) {
+                continue;
+            }
+            checkTypeAdapterConstructor(column, typeAdapter);
+
+            String simpleName = typeAdapter instanceof ClassName
+                    ? ((ClassName) typeAdapter).simpleName()
+                    : typeAdapter.toString();
+            String fieldName = simpleName.replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                    .replaceAll("\\W", "_")
+                    .toUpperCase();
+            String uniqueName = fieldName;
+            for (int i = 2; typeAdapters.containsValue(uniqueName); i++) {
+                uniqueName = fieldName + "_" + i;
+            }
+            typeAdapters.put(typeAdapter, uniqueName);
+        }
+        return typeAdapters;
+    }
+
+    /**
+     * Adapters are constructed directly by the generated code, so they must be instantiable.
+     */
+    private void checkTypeAdapterConstructor(VariableElement column, TypeName typeAdapter)
+            throws AbortProcessingException {
+        TypeElement adapterElement = elementUtils.getTypeElement(typeAdapter.toString());
+        if (adapterElement == null) {
+            return;
+        }
+        Set<Modifier> modifiers = adapterElement.getModifiers();
+        boolean instantiable = modifiers.contains(Modifier.PUBLIC)
+                && !modifiers.contains(Modifier.ABSTRACT)
+                && (adapterElement.getNestingKind() == NestingKind.TOP_LEVEL || modifiers.contains(Modifier.STATIC));
+        if (instantiable) {
+            instantiable = false;
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(adapterElement.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                    instantiable = true;
+                    break;
+                }
+            }
+        }
+        if (!instantiable) {
+            throw new AbortProcessingException(
+                    column,
+                    "Type adapter %s must be a public concrete class with a public no-argument constructor",
+                    adapterElement.getQualifiedName());
+        }
+    }
+
+    FieldSpec generateTypeAdapterField(TypeName typeAdapter, String fieldName) {
+        TypeSpec factory = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(TypeAdapterRegistry.Factory.class), typeAdapter))
+                .addMethod(MethodSpec.methodBuilder("create")
+                        .addAnnotation(ClassName.bestGuess("android.support.annotation.NonNull"))
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(typeAdapter)
+                        .addStatement("return new $T()", typeAdapter)
+                        .build())
+                .build();
+        return FieldSpec.builder(typeAdapter, fieldName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.getInstance().getTypeAdapter($T.class, $L)",
+                        ClassName.get(TypeAdapterRegistry.class),
+                        typeAdapter,
+                        factory)
+                .build();
+    }
+
     private FieldSpec generateCreateTableStatement(TypeElement type, EntityMetadata metadata)
             throws AbortProcessingException {
         FieldSpec.Builder createStmt = FieldSpec.builder(ClassName.get(String.class),
@@ -207,31 +410,57 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
                 Modifier.PUBLIC,
                 Modifier.STATIC,
                 Modifier.FINAL);
+        createStmt.initializer("$S", getCreateTableSql(metadata));
+        return createStmt.build();
+    }
 
-        CodeBlock.Builder columns = CodeBlock.builder();
+    private String getCreateTableSql(EntityMetadata metadata) throws AbortProcessingException {
+        StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS `")
+                .append(metadata.getTableName())
+                .append("` (");
         VariableElement primaryKey = metadata.getPrimaryKey();
-        columns.add("`$L` $L PRIMARY KEY AUTOINCREMENT",
-                getColumnName(primaryKey),
-                getDatabaseType(primaryKey));
+        sql.append('`').append(getColumnName(primaryKey)).append("` ")
+                .append(getDatabaseType(primaryKey))
+                .append(" PRIMARY KEY AUTOINCREMENT");
         for (VariableElement column : metadata.getColumns()) {
-            @DatabaseType
-            String dbType = getDatabaseType(column);
-            columns.add(", `$L` $L", getColumnName(column), dbType);
-            String defaultValue = column.getAnnotation(Column.class).defaultValue();
-            if (!StringUtils.isEmpty(defaultValue)) {
-                String defaultStmt = dbType.equals(DatabaseType.TEXT) ? " DEFAULT '$L'" : " DEFAULT $L";
-                columns.add(defaultStmt, defaultValue);
+            sql.append(", `").append(getColumnName(column)).append("` ").append(getDatabaseType(column));
+            String defaultValue = getDefaultValue(column);
+            if (defaultValue != null) {
+                sql.append(" DEFAULT ").append(defaultValue);
             }
         }
+        return sql.append(')').toString();
+    }
+
+    private FieldSpec generateIndexStatements(TypeElement type, EntityMetadata metadata) {
+        FieldSpec.Builder indexStmts = FieldSpec.builder(ArrayTypeName.of(String.class),
+                "INDEX_STATEMENTS",
+                Modifier.PUBLIC,
+                Modifier.STATIC,
+                Modifier.FINAL);
+
         CodeBlock.Builder initializer = CodeBlock.builder();
-        initializer.add("CREATE TABLE IF NOT EXISTS `$L` ($L)", metadata.getTableName(), columns.build());
-        createStmt.initializer("$S", initializer.build());
-        return createStmt.build();
+        initializer.add("new $T {", ArrayTypeName.of(String.class));
+        List<IndexMetadata> indices = metadata.getIndices();
+        if (!indices.isEmpty()) {
+            initializer.add("\n$>");
+            for (int i = 0, size = indices.size(); i < size; i++) {
+                if (i > 0) {
+                    initializer.add(",\n");
+                }
+                initializer.add("$S", indices.get(i).getCreateStatement(metadata.getTableName()));
+            }
+            initializer.add("\n$<");
+        }
+        initializer.add("}");
+        indexStmts.initializer(initializer.build());
+
+        return indexStmts.build();
     }
 
-    private FieldSpec generateProjection(TypeElement annotatedClass, EntityMetadata metadata) {
+    FieldSpec generateProjection(String name, List<VariableElement> columns) {
         FieldSpec.Builder projection = FieldSpec.builder(ArrayTypeName.of(String.class),
-                "PROJECTION",
+                name,
                 Modifier.PRIVATE,
                 Modifier.STATIC,
                 Modifier.FINAL);
@@ -239,7 +468,6 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         CodeBlock.Builder initializer = CodeBlock.builder();
         initializer.beginControlFlow("new $T", ArrayTypeName.of(String.class));
 
-        List<VariableElement> columns = metadata.getAllColumns();
         for (int i = 0, size = columns.size(); i < size; i++) {
             VariableElement column = columns.get(i);
             if (i > 0) {
@@ -256,7 +484,139 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         return projection.build();
     }
 
-    private MethodSpec generateQueryAll(TypeElement type, EntityMetadata metadata) {
+    private FieldSpec generateInsertStatement(TypeElement type, EntityMetadata metadata) {
+        FieldSpec.Builder insertStmt = FieldSpec.builder(ClassName.get(String.class),
+                "INSERT_STATEMENT",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL);
+
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (VariableElement column : metadata.getColumns()) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+                values.append(", ");
+            }
+            columns.append('`').append(getColumnName(column)).append('`');
+            values.append('?');
+        }
+
+        String statement = columns.length() > 0
+                ? String.format("INSERT INTO `%s` (%s) VALUES (%s)", metadata.getTableName(), columns, values)
+                : String.format("INSERT INTO `%s` DEFAULT VALUES", metadata.getTableName());
+        insertStmt.initializer("$S", statement);
+        return insertStmt.build();
+    }
+
+    private FieldSpec generateUpdateStatement(TypeElement type, EntityMetadata metadata) {
+        FieldSpec.Builder updateStmt = FieldSpec.builder(ClassName.get(String.class),
+                "UPDATE_STATEMENT",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL);
+
+        // columns are bound by bind() at 1..n and the primary key at n + 1
+        List<VariableElement> dataColumns = metadata.getColumns();
+        updateStmt.initializer("$S",
+                String.format("UPDATE `%s` SET %s WHERE `%s` = ?%d",
+                        metadata.getTableName(),
+                        buildUpdateColumns(metadata),
+                        getColumnName(metadata.getPrimaryKey()),
+                        dataColumns.size() + 1));
+        return updateStmt.build();
+    }
+
+    private FieldSpec generateUpdateByUniqueStatement(TypeElement type, EntityMetadata metadata) {
+        FieldSpec.Builder updateStmt = FieldSpec.builder(ClassName.get(String.class),
+                "UPDATE_BY_UNIQUE_STATEMENT",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL);
+
+        // bound as UPDATE_STATEMENT, the natural key is matched against the new column values,
+        // a row holding only a part of it fails on a unique index
+        List<VariableElement> columns = metadata.getColumns();
+        StringBuilder match = new StringBuilder();
+        for (VariableElement column : metadata.getUniqueColumns()) {
+            if (match.length() > 0) {
+                match.append(" OR ");
+            }
+            match.append('`').append(getColumnName(column)).append("` = ?").append(columns.indexOf(column) + 1);
+        }
+        updateStmt.initializer("$S",
+                String.format("UPDATE `%s` SET %s WHERE %s",
+                        metadata.getTableName(),
+                        buildUpdateColumns(metadata),
+                        match));
+        return updateStmt.build();
+    }
+
+    /**
+     * @return SET clause writing the columns bound by {@code bind()}, a lazy column is written
+     * only if its flag bound by {@code bindUpdateKey()} after the primary key is set
+     */
+    private String buildUpdateColumns(EntityMetadata metadata) {
+        List<VariableElement> dataColumns = metadata.getColumns();
+        List<VariableElement> lazyColumns = metadata.getLazyColumns();
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0, size = dataColumns.size(); i < size; i++) {
+            VariableElement column = dataColumns.get(i);
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            String columnName = getColumnName(column);
+            if (metadata.isLazy(column)) {
+                columns.append(String.format("`%1$s` = CASE WHEN ?%2$d THEN ?%3$d ELSE `%1$s` END",
+                        columnName, size + 2 + lazyColumns.indexOf(column), i + 1));
+            } else {
+                columns.append('`').append(columnName).append("` = ?").append(i + 1);
+            }
+        }
+        String pkName = getColumnName(metadata.getPrimaryKey());
+        if (columns.length() == 0) {
+            // nothing to update except the primary key itself, keep the statement valid
+            columns.append('`').append(pkName).append("` = `").append(pkName).append('`');
+        }
+        return columns.toString();
+    }
+
+    private FieldSpec generateFindByUniqueStatement(TypeElement type, EntityMetadata metadata) {
+        FieldSpec.Builder findStmt = FieldSpec.builder(ClassName.get(String.class),
+                "FIND_BY_UNIQUE_STATEMENT",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL);
+
+        // looked up once UPDATE_BY_UNIQUE_STATEMENT has stored the whole key in a single row
+        StringBuilder match = new StringBuilder();
+        for (VariableElement column : metadata.getUniqueColumns()) {
+            if (match.length() > 0) {
+                match.append(" OR ");
+            }
+            match.append('`').append(getColumnName(column)).append("` = ?");
+        }
+        findStmt.initializer("$S",
+                String.format("SELECT `%s` FROM `%s` WHERE %s",
+                        getColumnName(metadata.getPrimaryKey()),
+                        metadata.getTableName(),
+                        match));
+        return findStmt.build();
+    }
+
+    private FieldSpec generateDeleteStatement(TypeElement type, EntityMetadata metadata) {
+        return FieldSpec.builder(ClassName.get(String.class),
+                "DELETE_STATEMENT",
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL)
+                .initializer("$S", String.format("DELETE FROM `%s` WHERE `%s` = ?",
+                        metadata.getTableName(),
+                        getColumnName(metadata.getPrimaryKey())))
+                .build();
+    }
+
+    MethodSpec generateQueryAll(TypeElement type, EntityMetadata metadata) {
         MethodSpec.Builder method = MethodSpec.methodBuilder("queryAll");
         method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
         ParameterizedTypeName returnType = ParameterizedTypeName.get(ClassName.get(List.class), ClassName.get(type));
@@ -268,8 +628,13 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
                 .addAnnotation(nonNullAnnotation)
                 .build());
 
-        method.addStatement("$T db = databaseProvider.getReadableDatabase()",
-                ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"));
+        if (metadata.isCacheQueries()) {
+            method.addStatement("$T sql = $S", String.class, buildSelectSql(metadata, null, false));
+        }
+        beginRead(method);
+        if (metadata.isCacheQueries()) {
+            addCachedResultLookup(method, metadata, returnType, "null", false);
+        }
         method.addStatement("$T cursor = db.query($S, PROJECTION, null, null, null, null, null)",
                 ClassName.bestGuess("android.database.Cursor"),
                 metadata.getTableName());
@@ -284,88 +649,1052 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         method.addStatement("cursor.close()");
         method.endControlFlow();
 
+        if (metadata.isCacheQueries()) {
+            method.beginControlFlow("if (cacheable)");
+            method.addStatement("$T.getInstance().put($S, sql, null, version, copyAll(entities))",
+                    QueryCache.class, metadata.getTableName());
+            method.endControlFlow();
+        }
         method.addStatement("return entities");
+        endRead(method);
 
         return method.build();
     }
 
-    private MethodSpec generateDeleteEntity(TypeElement type, EntityMetadata metadata) {
-        MethodSpec.Builder method = MethodSpec.methodBuilder("delete");
-        method.addAnnotation(Override.class);
-        method.addModifiers(Modifier.PUBLIC);
+    FieldSpec generateRowMapper(TypeElement type, EntityMetadata metadata) {
+        ClassName entityClass = ClassName.get(type);
+        ClassName cursorClass = ClassName.bestGuess("android.database.Cursor");
         ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
-        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+        ParameterizedTypeName mapperType = ParameterizedTypeName.get(ClassName.get(RowMapper.class), entityClass);
+        TypeSpec mapper = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(mapperType)
+                .addMethod(MethodSpec.methodBuilder("map")
+                        .addAnnotation(nonNullAnnotation)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(entityClass)
+                        .addParameter(ParameterSpec.builder(cursorClass, "cursor")
+                                .addAnnotation(nonNullAnnotation)
+                                .build())
+                        .addStatement("$1T entity = new $1T()", entityClass)
+                        .addStatement("loadFromCursor(entity, cursor)")
+                        .addStatement("return entity")
+                        .build())
+                .build();
+
+        return FieldSpec.builder(mapperType, "ROW_MAPPER", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$L", mapper)
+                .build();
+    }
+
+    MethodSpec generateIterateAll(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("iterateAll");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addAnnotation(nonNullAnnotation);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(ParameterizedTypeName.get(ClassName.get(CursorIterator.class), ClassName.get(type)));
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider",
+                Modifier.FINAL)
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        method.addStatement("final $T db = databaseProvider.getReadableDatabase()",
+                ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"));
+        method.addStatement("$T cursor", ClassName.bestGuess("android.database.Cursor"));
+        method.beginControlFlow("try");
+        method.addStatement("cursor = db.query($S, PROJECTION, null, null, null, null, null)", metadata.getTableName());
+        method.nextControlFlow("catch ($T e)", RuntimeException.class);
+        method.addStatement("databaseProvider.releaseReadableDatabase(db)");
+        method.addStatement("throw e");
+        method.endControlFlow();
+        // the connection stays in use until the iteration is over
+        TypeSpec release = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(Runnable.class)
+                .addMethod(MethodSpec.methodBuilder("run")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addStatement("databaseProvider.releaseReadableDatabase(db)")
+                        .build())
+                .build();
+        method.addStatement("return new $T<>(cursor, ROW_MAPPER, $L)", CursorIterator.class, release);
+
+        return method.build();
+    }
+
+    private MethodSpec generateForEach(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("forEach");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.addParameter(ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(EntityConsumer.class), WildcardTypeName.supertypeOf(ClassName.get(type))),
+                "consumer")
                 .addAnnotation(nonNullAnnotation)
                 .build());
         method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
                 .addAnnotation(nonNullAnnotation)
                 .build());
 
-        VariableElement pk = metadata.getPrimaryKey();
-        Column columnAnnotation = pk.getAnnotation(Column.class);
-        method.beginControlFlow("if (entity.$L == 0)", pk.getSimpleName());
-        method.addStatement("throw new $T($S)", ClassName.bestGuess("android.database.SQLException"),
-                "Primary key must be provided to load entity");
+        beginRead(method);
+        method.addStatement("$T cursor = db.query($S, PROJECTION, null, null, null, null, null)",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName());
+        method.beginControlFlow("try");
+        method.beginControlFlow("while(cursor.moveToNext())");
+        method.addStatement("$1T entity = new $1T()", ClassName.get(type));
+        method.addStatement("loadFromCursor(entity, cursor)");
+        method.addStatement("consumer.accept(entity)");
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
         method.endControlFlow();
+        endRead(method);
 
-        ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
-        method.addStatement("$T db = databaseProvider.getReadableDatabase()", databaseClass);
-        method.addStatement("$T deleted = db.delete($S, $S, new $T { $T.valueOf(entity.$L) })",
-                TypeName.INT,
+        return method.build();
+    }
+
+    private MethodSpec generateMigrate(TypeElement type, EntityMetadata metadata)
+            throws AbortProcessingException {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("migrate");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "database");
+        method.addParameter(TypeName.INT, "oldVersion");
+
+        method.beginControlFlow("if (oldVersion >= SCHEMA_VERSION)");
+        method.addComment("the schema is up to date, the table only has to exist");
+        method.addStatement("database.execSQL(CREATE_STATEMENT)");
+        method.beginControlFlow("for ($T statement : INDEX_STATEMENTS)", String.class);
+        method.addStatement("database.execSQL(statement)");
+        method.endControlFlow();
+        method.addStatement("return");
+        method.endControlFlow();
+
+        ClassName definitionClass = ClassName.get(SchemaMigration.ColumnDefinition.class);
+        CodeBlock.Builder columns = CodeBlock.builder();
+        for (VariableElement column : metadata.getAllColumns()) {
+            columns.add(",\nnew $T($S, $S, $S, $L)",
+                    definitionClass,
+                    getColumnName(column),
+                    getDatabaseType(column),
+                    getDefaultValue(column),
+                    column.getAnnotation(PrimaryKey.class) != null);
+        }
+        method.addStatement("$T.migrate(database,\n$S,\nCREATE_STATEMENT,\nINDEX_STATEMENTS$L)",
+                SchemaMigration.class,
                 metadata.getTableName(),
-                columnAnnotation.name() + " = ?",
-                ArrayTypeName.of(String.class),
-                ClassName.get(String.class),
-                pk.getSimpleName());
+                columns.build());
 
-        method.beginControlFlow("if (deleted > 0)");
-        method.addStatement("entity.$L = 0", pk.getSimpleName());
+        return method.build();
+    }
+
+    /**
+     * Obtains a readable database and opens the block it's released at the end of.
+     */
+    private void beginRead(MethodSpec.Builder method) {
+        method.addStatement("$T db = databaseProvider.getReadableDatabase()",
+                ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"));
+        method.beginControlFlow("try");
+    }
+
+    private void endRead(MethodSpec.Builder method) {
+        method.nextControlFlow("finally");
+        method.addStatement("databaseProvider.releaseReadableDatabase(db)");
         method.endControlFlow();
+    }
+
+    private MethodSpec generateObserveAll(TypeElement type, EntityMetadata metadata) {
+        ParameterizedTypeName resultType = ParameterizedTypeName.get(ClassName.get(List.class), ClassName.get(type));
+        MethodSpec.Builder method = startObserveMethod("observeAll", resultType, false);
+        method.addStatement("return $T.subscribe($S, $L, callback, executor)",
+                ObservableQuery.class,
+                metadata.getTableName(),
+                generateQueryCallable(resultType, CodeBlock.of("return queryAll(databaseProvider)")));
 
         return method.build();
     }
 
-    private MethodSpec generateLoadEntity(TypeElement type, EntityMetadata metadata) {
-        MethodSpec.Builder method = MethodSpec.methodBuilder("load");
-        method.addAnnotation(Override.class);
-        method.addModifiers(Modifier.PUBLIC);
+    private MethodSpec generateObserveById(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = startObserveMethod("observeById", ClassName.get(type), true);
+        method.addStatement("return $T.subscribe($S, $L, callback, executor)",
+                ObservableQuery.class,
+                metadata.getTableName(),
+                generateQueryCallable(ClassName.get(type),
+                        CodeBlock.of("return loadAll(new long[] { id }, databaseProvider).get(id)")));
+
+        return method.build();
+    }
+
+    /**
+     * @return builder of a static method observing {@code resultType} with the common parameters added
+     */
+    private MethodSpec.Builder startObserveMethod(String name, TypeName resultType, boolean byId) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder(name);
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
         ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
-        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+        method.addAnnotation(nonNullAnnotation);
+        method.returns(Subscription.class);
+        if (byId) {
+            method.addParameter(TypeName.LONG, "id", Modifier.FINAL);
+        }
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider",
+                Modifier.FINAL)
                 .addAnnotation(nonNullAnnotation)
                 .build());
-        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+        method.addParameter(ParameterSpec.builder(ClassName.get(Executor.class), "executor")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(ResultCallback.class), resultType), "callback")
                 .addAnnotation(nonNullAnnotation)
                 .build());
+        return method;
+    }
 
-        VariableElement pk = metadata.getPrimaryKey();
-        Column columnAnnotation = pk.getAnnotation(Column.class);
-        method.beginControlFlow("if (entity.$L == 0)", pk.getSimpleName());
-        method.addStatement("throw new $T($S)", ClassName.bestGuess("android.database.SQLException"),
-                "Primary key must be provided to load entity");
-        method.endControlFlow();
+    private TypeSpec generateQueryCallable(TypeName resultType, CodeBlock query) {
+        return TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Callable.class), resultType))
+                .addMethod(MethodSpec.methodBuilder("call")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(resultType)
+                        .addStatement(query)
+                        .build())
+                .build();
+    }
 
-        ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
-        method.addStatement("$T db = databaseProvider.getReadableDatabase()", databaseClass);
-        method.addStatement("$T cursor = db.query($S,\nPROJECTION,\n$S,\nnew $T { $T.valueOf(entity.$L) },\nnull,\nnull,\nnull)",
-                ClassName.bestGuess("android.database.Cursor"),
+    private MethodSpec generateQueryPage(TypeElement type, EntityMetadata metadata, VariableElement sortColumn)
+            throws AbortProcessingException {
+        String methodName = sortColumn == null
+                ? "queryPage"
+                : "queryPageBy" + StringUtils.capitalize(sortColumn.getSimpleName().toString());
+        MethodSpec.Builder method = MethodSpec.methodBuilder(methodName);
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName entityClass = ClassName.get(type);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addAnnotation(nonNullAnnotation);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(ParameterizedTypeName.get(ClassName.get(Page.class), entityClass));
+        method.addParameter(ParameterSpec.builder(ClassName.get(PageKey.class), "after")
+                .addAnnotation(ClassName.bestGuess("android.support.annotation.Nullable"))
+                .build());
+        method.addParameter(TypeName.INT, "limit");
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        VariableElement pk = metadata.getPrimaryKey();
+        String pkName = getColumnName(pk);
+        CodeBlock selection;
+        CodeBlock selectionArgs;
+        String orderBy;
+        int sortColumnIndex;
+        if (sortColumn == null) {
+            selection = CodeBlock.of("$S", "`" + pkName + "` > ?");
+            selectionArgs = CodeBlock.of("new $T { $T.toString(after.getId()) }",
+                    ArrayTypeName.of(String.class),
+                    ClassName.get(Long.class));
+            orderBy = "`" + pkName + "`";
+            sortColumnIndex = -1;
+        } else {
+            if (DatabaseType.BLOB.equals(getDatabaseType(sortColumn))) {
+                throw new AbortProcessingException(
+                        sortColumn,
+                        "BLOB column %s can't be sortable",
+                        sortColumn.getSimpleName());
+            }
+            if (metadata.isLazy(sortColumn)) {
+                throw new AbortProcessingException(
+                        sortColumn,
+                        "Lazy column %s can't be sortable",
+                        sortColumn.getSimpleName());
+            }
+            String columnName = getColumnName(sortColumn);
+            selection = CodeBlock.of("after.getSelection($S, $S)", columnName, pkName);
+            selectionArgs = CodeBlock.of("after.getSelectionArgs()");
+            orderBy = "`" + columnName + "`, `" + pkName + "`";
+            sortColumnIndex = metadata.getEagerColumns().indexOf(sortColumn);
+        }
+
+        method.beginControlFlow("if (limit <= 0)");
+        method.addStatement("throw new $T($S)", IllegalArgumentException.class, "Page limit must be positive");
+        method.endControlFlow();
+        beginRead(method);
+        method.addStatement("$T cursor = db.query($S,\nPROJECTION,\n"
+                        + "after != null ? $L : null,\n"
+                        + "after != null ? $L : null,\n"
+                        + "null,\nnull,\n$S,\n$T.toString(limit + 1))",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName(),
+                selection,
+                selectionArgs,
+                orderBy,
+                ClassName.get(Integer.class));
+        method.addStatement("$T entities = new $T<>(limit)",
+                ParameterizedTypeName.get(ClassName.get(List.class), entityClass),
+                ClassName.get(ArrayList.class));
+        method.addStatement("$T nextKey = null", PageKey.class);
+        method.beginControlFlow("try");
+        method.beginControlFlow("while (entities.size() < limit && cursor.moveToNext())");
+        method.addStatement("$1T entity = new $1T()", entityClass);
+        method.addStatement("loadFromCursor(entity, cursor)");
+        method.addStatement("entities.add(entity)");
+        method.beginControlFlow("if (entities.size() == limit && cursor.getCount() > limit)");
+        method.addCode("// the extra row only tells that there is one more page\n");
+        method.addStatement("nextKey = $T.fromCursor(cursor, $L, entity.$L)",
+                PageKey.class,
+                sortColumnIndex,
+                pk.getSimpleName());
+        method.endControlFlow();
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+
+        method.addStatement("return new $T<>(entities, nextKey)", Page.class);
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateFindBy(TypeElement type, EntityMetadata metadata, VariableElement column,
+            Map<TypeName, String> typeAdapters, boolean firstOnly) {
+        String fieldName = StringUtils.capitalize(column.getSimpleName().toString());
+        MethodSpec.Builder method = MethodSpec.methodBuilder((firstOnly ? "findFirstBy" : "findBy") + fieldName);
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName entityClass = ClassName.get(type);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        ClassName nullableAnnotation = ClassName.bestGuess("android.support.annotation.Nullable");
+        ParameterizedTypeName listType = ParameterizedTypeName.get(ClassName.get(List.class), entityClass);
+        method.addAnnotation(firstOnly ? nullableAnnotation : nonNullAnnotation);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(firstOnly ? entityClass : listType);
+        TypeName columnType = TypeName.get(column.asType());
+        TypeName typeAdapter = getTypeAdapter(column);
+        CodeBlock selectionArg = isInlineType(column, typeAdapter)
+                ? InlineAccessors.toSelectionArg(columnType, "value")
+                : null;
+        // values never stored as NULL can't be looked up by null, the query is the same for all the others
+        boolean nullable = selectionArg == null || !InlineAccessors.isStoredNonNull(columnType);
+        ParameterSpec.Builder valueParam = ParameterSpec.builder(columnType, "value");
+        if (!columnType.isPrimitive()) {
+            valueParam.addAnnotation(nullable ? nullableAnnotation : nonNullAnnotation);
+        }
+        method.addParameter(valueParam.build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        if (!nullable && !columnType.isPrimitive()) {
+            method.beginControlFlow("if (value == null)");
+            method.addStatement("throw new $T($S)", IllegalArgumentException.class,
+                    column.getSimpleName() + " is never stored as NULL and can't be looked up by null");
+            method.endControlFlow();
+        }
+        if (selectionArg != null) {
+            method.addStatement("$T arg = $L", String.class, selectionArg);
+        } else {
+            // let the adapter convert the value exactly as it's stored
+            ClassName contentValuesType = ClassName.bestGuess("android.content.ContentValues");
+            method.addStatement("$1T values = new $1T(1)", contentValuesType);
+            method.addStatement("$L.write($S, value, values)", typeAdapters.get(typeAdapter), "value");
+            method.addStatement("$T arg = values.getAsString($S)", String.class, "value");
+        }
+
+        String columnName = getColumnName(column);
+        if (metadata.isCacheQueries()) {
+            if (nullable) {
+                method.addStatement("$T sql = arg != null\n? $S\n: $S",
+                        String.class,
+                        buildSelectSql(metadata, "`" + columnName + "` = ?", firstOnly),
+                        buildSelectSql(metadata, "`" + columnName + "` IS NULL", firstOnly));
+                method.addStatement("$T[] args = arg != null ? new $T { arg } : null",
+                        String.class, ArrayTypeName.of(String.class));
+            } else {
+                method.addStatement("$T sql = $S",
+                        String.class, buildSelectSql(metadata, "`" + columnName + "` = ?", firstOnly));
+                method.addStatement("$T[] args = new $T { arg }", String.class, ArrayTypeName.of(String.class));
+            }
+        }
+        beginRead(method);
+        if (metadata.isCacheQueries()) {
+            addCachedResultLookup(method, metadata, listType, "args", firstOnly);
+        }
+        CodeBlock selection = nullable
+                ? CodeBlock.of("arg != null ? $S : $S,\narg != null ? new $T { arg } : null",
+                        "`" + columnName + "` = ?",
+                        "`" + columnName + "` IS NULL",
+                        ArrayTypeName.of(String.class))
+                : CodeBlock.of("$S,\nnew $T { arg }", "`" + columnName + "` = ?", ArrayTypeName.of(String.class));
+        method.addStatement("$T cursor = db.query($S,\nPROJECTION,\n$L,\nnull,\nnull,\n$S,\n$L)",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName(),
+                selection,
+                "`" + getColumnName(metadata.getPrimaryKey()) + "`",
+                firstOnly ? CodeBlock.of("$S", "1") : "null");
+
+        if (firstOnly) {
+            method.beginControlFlow("try");
+            method.beginControlFlow("if (cursor.moveToNext())");
+            method.addStatement("$1T entity = new $1T()", entityClass);
+            method.addStatement("loadFromCursor(entity, cursor)");
+            if (metadata.isCacheQueries()) {
+                method.beginControlFlow("if (cacheable)");
+                method.addStatement("$T.getInstance().put($S, sql, args, version, copyAll($T.singletonList(entity)))",
+                        QueryCache.class, metadata.getTableName(), Collections.class);
+                method.endControlFlow();
+            }
+            method.addStatement("return entity");
+            method.endControlFlow();
+            if (metadata.isCacheQueries()) {
+                method.beginControlFlow("if (cacheable)");
+                method.addStatement("$T.getInstance().put($S, sql, args, version, $T.emptyList())",
+                        QueryCache.class, metadata.getTableName(), Collections.class);
+                method.endControlFlow();
+            }
+            method.addStatement("return null");
+            method.nextControlFlow("finally");
+            method.addStatement("cursor.close()");
+            method.endControlFlow();
+        } else {
+            method.addStatement("$T entities = new $T<>(cursor.getCount())", listType, ClassName.get(ArrayList.class));
+            method.beginControlFlow("try");
+            method.beginControlFlow("while(cursor.moveToNext())");
+            method.addStatement("$1T entity = new $1T()", entityClass);
+            method.addStatement("loadFromCursor(entity, cursor)");
+            method.addStatement("entities.add(entity)");
+            method.endControlFlow();
+            method.nextControlFlow("finally");
+            method.addStatement("cursor.close()");
+            method.endControlFlow();
+            if (metadata.isCacheQueries()) {
+                method.beginControlFlow("if (cacheable)");
+                method.addStatement("$T.getInstance().put($S, sql, args, version, copyAll(entities))",
+                        QueryCache.class, metadata.getTableName());
+                method.endControlFlow();
+            }
+            method.addStatement("return entities");
+        }
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateUpsertEntity(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("upsert");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(TypeName.LONG);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        // the update and the insert have to see the same rows
+        method.addStatement("upsertAll($T.singletonList(entity), databaseProvider)", Collections.class);
+        method.addStatement("return entity.$L", metadata.getPrimaryKey().getSimpleName());
+
+        return method.build();
+    }
+
+    private MethodSpec generateUpsertAllEntities(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("upsertAll");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(Collection.class), ClassName.get(type)), "entities")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
+        method.addStatement("$T db = databaseProvider.getWritableDatabase()", databaseClass);
+        method.addStatement("boolean successful = false");
+        method.addStatement("db.beginTransaction()");
+        method.beginControlFlow("try");
+        addRestoreIdsOnRollback(method, type, metadata);
+        method.beginControlFlow("for ($T entity : entities)", ClassName.get(type));
+        method.addStatement("upsertRow(db, entity)");
+        method.endControlFlow();
+        addTableChanged(method, metadata);
+        method.addStatement("db.setTransactionSuccessful()");
+        method.addStatement("successful = true");
+        if (metadata.isCacheEnabled()) {
+            method.beginControlFlow("for ($T entity : entities)", ClassName.get(type));
+            method.addStatement("CACHE.remove(db, entity.$L)", metadata.getPrimaryKey().getSimpleName());
+            method.endControlFlow();
+        }
+        method.nextControlFlow("finally");
+        method.addStatement("$T.endTransaction(db, successful)", Transactions.class);
+        method.endControlFlow();
+
+        return method.build();
+    }
+
+    private MethodSpec generateUpsertRow(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("upsertRow");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "db");
+        method.addParameter(ClassName.get(type), "entity");
+
+        VariableElement pk = metadata.getPrimaryKey();
+        ClassName statementClass = ClassName.bestGuess("android.database.sqlite.SQLiteStatement");
+        method.addStatement("$T statement", statementClass);
+        method.addStatement("int updated = 0");
+        method.beginControlFlow("if (entity.$L > 0)", pk.getSimpleName());
+        // a natural key held by another row fails on its unique index
+        method.addStatement("statement = STATEMENTS.acquire(db, UPDATE_STATEMENT)");
+        method.beginControlFlow("try");
+        method.addStatement("bind(statement, entity)");
+        addBindUpdateKey(method, metadata, "statement");
+        method.addStatement("updated = statement.executeUpdateDelete()");
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, UPDATE_STATEMENT, statement)");
+        method.endControlFlow();
+        method.endControlFlow();
+
+        method.beginControlFlow("if (updated == 0)");
+        method.addStatement("statement = STATEMENTS.acquire(db, UPDATE_BY_UNIQUE_STATEMENT)");
+        method.beginControlFlow("try");
+        method.addStatement("bind(statement, entity)");
+        addBindUpdateKey(method, metadata, "statement");
+        method.addStatement("updated = statement.executeUpdateDelete()");
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, UPDATE_BY_UNIQUE_STATEMENT, statement)");
+        method.endControlFlow();
+        method.beginControlFlow("if (updated > 0)");
+        // the updated row keeps its primary key
+        method.addStatement("statement = STATEMENTS.acquire(db, FIND_BY_UNIQUE_STATEMENT)");
+        method.beginControlFlow("try");
+        method.addStatement("bindUnique(statement, entity)");
+        method.addStatement("entity.$L = statement.simpleQueryForLong()", pk.getSimpleName());
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, FIND_BY_UNIQUE_STATEMENT, statement)");
+        method.endControlFlow();
+        method.endControlFlow();
+        method.endControlFlow();
+
+        if (metadata.getLazyColumns().isEmpty()) {
+            method.beginControlFlow("if (updated == 0)");
+        } else {
+            method.beginControlFlow("if (updated > 0)");
+            addLazyColumnsWritten(method, metadata, false);
+            method.nextControlFlow("else");
+        }
+        method.addStatement("statement = STATEMENTS.acquire(db, INSERT_STATEMENT)");
+        method.beginControlFlow("try");
+        method.addStatement("bind(statement, entity)");
+        method.addStatement("entity.$L = statement.executeInsert()", pk.getSimpleName());
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, INSERT_STATEMENT, statement)");
+        method.endControlFlow();
+        addLazyColumnsWritten(method, metadata, true);
+        method.endControlFlow();
+        if (metadata.isTrackChanges()) {
+            method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+        }
+
+        return method.build();
+    }
+
+    private MethodSpec generateBindUnique(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("bindUnique");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteStatement"), "statement");
+        method.addParameter(ClassName.get(type), "entity");
+
+        List<VariableElement> columns = metadata.getUniqueColumns();
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            addBindColumn(method, columns.get(i), String.valueOf(i + 1), typeAdapters);
+        }
+
+        return method.build();
+    }
+
+    private MethodSpec generateDeleteEntity(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("delete");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        VariableElement pk = metadata.getPrimaryKey();
+        method.beginControlFlow("if (entity.$L == 0)", pk.getSimpleName());
+        method.addStatement("throw new $T($S)", ClassName.bestGuess("android.database.SQLException"),
+                "Primary key must be provided to delete entity");
+        method.endControlFlow();
+
+        ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
+        ClassName statementClass = ClassName.bestGuess("android.database.sqlite.SQLiteStatement");
+        method.addStatement("$T db = databaseProvider.getWritableDatabase()", databaseClass);
+        addRestoreIdOnRollback(method, metadata);
+        method.addStatement("$T statement = STATEMENTS.acquire(db, DELETE_STATEMENT)", statementClass);
+        method.addStatement("$T deleted", TypeName.INT);
+        method.beginControlFlow("try");
+        method.addStatement("statement.bindLong(1, entity.$L)", pk.getSimpleName());
+        method.addStatement("deleted = statement.executeUpdateDelete()");
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, DELETE_STATEMENT, statement)");
+        method.endControlFlow();
+
+        method.beginControlFlow("if (deleted > 0)");
+        addTableChanged(method, metadata);
+        if (metadata.isCacheEnabled()) {
+            method.addStatement("CACHE.remove(db, entity.$L)", pk.getSimpleName());
+        }
+        method.addStatement("entity.$L = 0", pk.getSimpleName());
+        if (metadata.isTrackChanges()) {
+            method.addStatement("TRACKER.forget(entity)");
+        }
+        if (!metadata.getLazyColumns().isEmpty()) {
+            method.addStatement("LAZY.forget(entity)");
+        }
+        method.endControlFlow();
+
+        return method.build();
+    }
+
+    private MethodSpec generateDeleteAll(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("deleteAll");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(TypeName.INT);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ArrayTypeName.of(TypeName.LONG), "ids")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        method.beginControlFlow("if (ids.length == 0)");
+        method.addStatement("return 0");
+        method.endControlFlow();
+
+        method.addStatement("$T db = databaseProvider.getWritableDatabase()",
+                ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"));
+        method.addStatement("int deleted = 0");
+        method.addStatement("boolean successful = false");
+        method.addStatement("db.beginTransaction()");
+        method.beginControlFlow("try");
+        method.beginControlFlow("for (int offset = 0; offset < ids.length; offset += $T.MAX_ARGUMENTS)",
+                InClause.class);
+        method.addStatement("int count = $T.min($T.MAX_ARGUMENTS, ids.length - offset)", Math.class, InClause.class);
+        method.addStatement("deleted += db.delete($S, $T.selection($S, count), $T.args(ids, offset, count))",
                 metadata.getTableName(),
-                columnAnnotation.name() + " = ?",
+                InClause.class,
+                "`" + getColumnName(metadata.getPrimaryKey()) + "`",
+                InClause.class);
+        method.endControlFlow();
+        method.beginControlFlow("if (deleted > 0)");
+        addTableChanged(method, metadata);
+        method.endControlFlow();
+        method.addStatement("db.setTransactionSuccessful()");
+        method.addStatement("successful = true");
+        if (metadata.isCacheEnabled()) {
+            method.beginControlFlow("for (long id : ids)");
+            method.addStatement("CACHE.remove(db, id)");
+            method.endControlFlow();
+        }
+        method.nextControlFlow("finally");
+        method.addStatement("$T.endTransaction(db, successful)", Transactions.class);
+        method.endControlFlow();
+        method.addStatement("return deleted");
+
+        return method.build();
+    }
+
+    private MethodSpec generateCount(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = startReadMethod("count", TypeName.LONG);
+        beginRead(method);
+        method.addStatement("return $T.longForQuery(db, $S, null)",
+                ClassName.bestGuess("android.database.DatabaseUtils"),
+                "SELECT COUNT(*) FROM `" + metadata.getTableName() + "`");
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateExists(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = startReadMethod("exists", TypeName.BOOLEAN,
+                ParameterSpec.builder(TypeName.LONG, "id").build());
+        beginRead(method);
+        method.addStatement("return $T.longForQuery(db, $S, new $T[] { $T.valueOf(id) }) != 0",
+                ClassName.bestGuess("android.database.DatabaseUtils"),
+                "SELECT EXISTS(SELECT 1 FROM `" + metadata.getTableName() + "` WHERE `"
+                        + getColumnName(metadata.getPrimaryKey()) + "` = ?)",
+                String.class,
+                String.class);
+        endRead(method);
+
+        return method.build();
+    }
+
+    /**
+     * Generates {@code <function><Field>()} computing the SQL aggregate over a numeric column.
+     * Sums of an empty table are {@code 0}, other aggregates are {@code null}.
+     */
+    private MethodSpec generateAggregate(EntityMetadata metadata, VariableElement column, String function,
+            boolean integral) {
+        boolean sum = function.equals("sum");
+        TypeName resultType;
+        if (sum) {
+            resultType = integral ? TypeName.LONG : TypeName.DOUBLE;
+        } else {
+            resultType = integral && !function.equals("avg") ? TypeName.LONG.box() : TypeName.DOUBLE.box();
+        }
+        String methodName = function + StringUtils.capitalize(column.getSimpleName().toString());
+        MethodSpec.Builder method = startReadMethod(methodName, resultType);
+        if (!sum) {
+            method.addAnnotation(ClassName.bestGuess("android.support.annotation.Nullable"));
+        }
+
+        String expression = function.toUpperCase() + "(`" + getColumnName(column) + "`)";
+        if (sum) {
+            expression = integral ? "COALESCE(" + expression + ", 0)" : "TOTAL(`" + getColumnName(column) + "`)";
+        }
+        String getter = TypeName.LONG.equals(resultType.isBoxedPrimitive() ? resultType.unbox() : resultType)
+                ? "getLong" : "getDouble";
+
+        beginRead(method);
+        method.addStatement("$T cursor = db.rawQuery($S, null)",
+                ClassName.bestGuess("android.database.Cursor"),
+                "SELECT " + expression + " FROM `" + metadata.getTableName() + "`");
+        method.beginControlFlow("try");
+        if (sum) {
+            method.addStatement("return cursor.moveToFirst() ? cursor.$L(0) : 0", getter);
+        } else {
+            method.addStatement("return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.$L(0) : null", getter);
+        }
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+        endRead(method);
+
+        return method.build();
+    }
+
+    /**
+     * Generates {@code countBy<Field>()} returning row counts per column value. Integral columns
+     * are keyed by the stored value in a {@code LongSparseArray}, enums in an {@code EnumMap},
+     * both skip {@code NULL} values. Other types are keyed by the field value in a {@code HashMap}.
+     */
+    private MethodSpec generateCountBy(EntityMetadata metadata, VariableElement column,
+            Map<TypeName, String> typeAdapters) {
+        TypeName columnType = TypeName.get(column.asType());
+        TypeName keyType = columnType.box();
+        TypeName typeAdapter = getTypeAdapter(column);
+        boolean inline = isInlineType(column, typeAdapter);
+        TypeName unboxed = columnType.isBoxedPrimitive() ? columnType.unbox() : columnType;
+        boolean integral = inline && (TypeName.LONG.equals(unboxed)
+                || TypeName.INT.equals(unboxed)
+                || TypeName.SHORT.equals(unboxed)
+                || TypeName.BYTE.equals(unboxed));
+        Element fieldTypeElement = processingEnv.getTypeUtils().asElement(column.asType());
+        boolean isEnum = fieldTypeElement != null && fieldTypeElement.getKind() == ElementKind.ENUM;
+
+        ParameterizedTypeName resultType;
+        if (integral) {
+            resultType = ParameterizedTypeName.get(ClassName.bestGuess("android.util.LongSparseArray"),
+                    TypeName.LONG.box());
+        } else {
+            resultType = ParameterizedTypeName.get(ClassName.get(Map.class), keyType, TypeName.LONG.box());
+        }
+        String methodName = "countBy" + StringUtils.capitalize(column.getSimpleName().toString());
+        MethodSpec.Builder method = startReadMethod(methodName, resultType);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.NonNull"));
+
+        if (integral) {
+            method.addStatement("$T counts = new $T<>()", resultType, resultType.rawType);
+        } else if (isEnum) {
+            method.addStatement("$T counts = new $T<>($T.class)", resultType, EnumMap.class, columnType);
+        } else {
+            method.addStatement("$T counts = new $T<>()", resultType, HashMap.class);
+        }
+        String columnName = "`" + getColumnName(column) + "`";
+        beginRead(method);
+        method.addStatement("$T cursor = db.rawQuery($S, null)",
+                ClassName.bestGuess("android.database.Cursor"),
+                "SELECT " + columnName + ", COUNT(*) FROM `" + metadata.getTableName() + "` GROUP BY " + columnName);
+        method.beginControlFlow("try");
+        method.beginControlFlow("while (cursor.moveToNext())");
+        if (integral) {
+            method.beginControlFlow("if (!cursor.isNull(0))");
+            method.addStatement("counts.put(cursor.getLong(0), cursor.getLong(1))");
+            method.endControlFlow();
+        } else {
+            if (inline) {
+                method.addStatement("$T key", columnType);
+                method.addCode(InlineAccessors.read(columnType, "cursor", "0", "key"));
+            } else {
+                method.addStatement("$T key = $L.read(0, cursor)", columnType, typeAdapters.get(typeAdapter));
+            }
+            if (isEnum) {
+                method.beginControlFlow("if (key != null)");
+                method.addStatement("counts.put(key, cursor.getLong(1))");
+                method.endControlFlow();
+            } else {
+                method.addStatement("counts.put(key, cursor.getLong(1))");
+            }
+        }
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+        method.addStatement("return counts");
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec.Builder startReadMethod(String name, TypeName resultType, ParameterSpec... parameters) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder(name);
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        method.returns(resultType);
+        for (ParameterSpec parameter : parameters) {
+            method.addParameter(parameter);
+        }
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(ClassName.bestGuess("android.support.annotation.NonNull"))
+                .build());
+        return method;
+    }
+
+    private MethodSpec generateLoadEntity(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("load");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        VariableElement pk = metadata.getPrimaryKey();
+        method.beginControlFlow("if (entity.$L == 0)", pk.getSimpleName());
+        method.addStatement("throw new $T($S)", ClassName.bestGuess("android.database.SQLException"),
+                "Primary key must be provided to load entity");
+        method.endControlFlow();
+
+        if (metadata.isCacheEnabled()) {
+            method.addStatement("$T cached = CACHE.get(entity.$L)", ClassName.get(type), pk.getSimpleName());
+            method.beginControlFlow("if (cached != null)");
+            method.addStatement("copy(cached, entity)");
+            if (!metadata.getLazyColumns().isEmpty()) {
+                // cached entities are fully loaded
+                method.addStatement("LAZY.setLoaded(entity, $L)", getAllLazyColumns(metadata));
+            }
+            if (metadata.isTrackChanges()) {
+                method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+            }
+            method.addStatement("return");
+            method.endControlFlow();
+            method.addStatement("long version = CACHE.getVersion()");
+        }
+
+        beginRead(method);
+        boolean hasLazyColumns = !metadata.getLazyColumns().isEmpty();
+        method.addStatement("$T cursor = db.query($S,\n$L,\n$S,\nnew $T { $T.valueOf(entity.$L) },\nnull,\nnull,\nnull)",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName(),
+                hasLazyColumns ? "FULL_PROJECTION" : "PROJECTION",
+                getColumnName(pk) + " = ?",
                 ArrayTypeName.of(String.class),
                 ClassName.get(String.class),
                 pk.getSimpleName());
+        method.beginControlFlow("try");
         method.beginControlFlow("if (cursor.moveToNext())");
         method.addStatement("loadFromCursor(entity, cursor)");
+        if (hasLazyColumns) {
+            method.addStatement("loadDeferredFromCursor(entity, cursor, $L)", metadata.getEagerColumns().size());
+        }
+        if (metadata.isCacheEnabled()) {
+            // rows read inside a transaction may never be committed
+            method.beginControlFlow("if (!db.inTransaction())");
+            method.addStatement("updateCache(entity, version)");
+            method.endControlFlow();
+        }
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateLoadAll(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("loadAll");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addAnnotation(nonNullAnnotation);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        ClassName entityClass = ClassName.get(type);
+        ParameterizedTypeName resultType = ParameterizedTypeName.get(
+                ClassName.bestGuess("android.util.LongSparseArray"), entityClass);
+        method.returns(resultType);
+        method.addParameter(ParameterSpec.builder(ArrayTypeName.of(TypeName.LONG), "ids")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        VariableElement pk = metadata.getPrimaryKey();
+        boolean hasLazyColumns = !metadata.getLazyColumns().isEmpty();
+        method.addStatement("$T entities = new $T<>(ids.length)", resultType, resultType.rawType);
+        method.beginControlFlow("if (ids.length == 0)");
+        method.addStatement("return entities");
+        method.endControlFlow();
+
+        beginRead(method);
+        method.beginControlFlow("for (int offset = 0; offset < ids.length; offset += $T.MAX_ARGUMENTS)",
+                InClause.class);
+        method.addStatement("int count = $T.min($T.MAX_ARGUMENTS, ids.length - offset)", Math.class, InClause.class);
+        method.addStatement("$T cursor = db.query($S,\n$L,\n$T.selection($S, count),\n"
+                        + "$T.args(ids, offset, count),\nnull,\nnull,\nnull)",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName(),
+                hasLazyColumns ? "FULL_PROJECTION" : "PROJECTION",
+                InClause.class,
+                "`" + getColumnName(pk) + "`",
+                InClause.class);
+        method.beginControlFlow("try");
+        method.beginControlFlow("while(cursor.moveToNext())");
+        method.addStatement("$1T entity = new $1T()", entityClass);
+        method.addStatement("loadFromCursor(entity, cursor)");
+        if (hasLazyColumns) {
+            method.addStatement("loadDeferredFromCursor(entity, cursor, $L)", metadata.getEagerColumns().size());
+        }
+        method.addStatement("entities.put(entity.$L, entity)", pk.getSimpleName());
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+        method.endControlFlow();
+        method.addStatement("return entities");
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateLoadDeferred(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("loadDeferred");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        method.addAnnotation(ClassName.bestGuess("android.support.annotation.WorkerThread"));
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        VariableElement pk = metadata.getPrimaryKey();
+        method.beginControlFlow("if (entity.$L == 0)", pk.getSimpleName());
+        method.addStatement("throw new $T($S)", ClassName.bestGuess("android.database.SQLException"),
+                "Primary key must be provided to load entity");
+        method.endControlFlow();
+
+        beginRead(method);
+        method.addStatement("$T cursor = db.query($S,\nDEFERRED_PROJECTION,\n$S,\nnew $T { $T.valueOf(entity.$L) },\nnull,\nnull,\nnull)",
+                ClassName.bestGuess("android.database.Cursor"),
+                metadata.getTableName(),
+                getColumnName(pk) + " = ?",
+                ArrayTypeName.of(String.class),
+                ClassName.get(String.class),
+                pk.getSimpleName());
+        method.beginControlFlow("try");
+        method.beginControlFlow("if (cursor.moveToNext())");
+        method.addStatement("loadDeferredFromCursor(entity, cursor, 0)");
+        method.endControlFlow();
+        method.nextControlFlow("finally");
+        method.addStatement("cursor.close()");
+        method.endControlFlow();
+        endRead(method);
+
+        return method.build();
+    }
+
+    private MethodSpec generateSaveEntity(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("save");
+        method.addAnnotation(Override.class);
+        method.addModifiers(Modifier.PUBLIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
+        ClassName statementClass = ClassName.bestGuess("android.database.sqlite.SQLiteStatement");
+        method.addStatement("$T db = databaseProvider.getWritableDatabase()", databaseClass);
+        addRestoreIdOnRollback(method, metadata);
+
+        VariableElement pk = metadata.getPrimaryKey();
+        method.beginControlFlow("if (entity.$L > 0)", pk.getSimpleName());
+        if (metadata.isTrackChanges()) {
+            method.beginControlFlow("if (updateChanges(db, entity))");
+            if (metadata.isCacheEnabled()) {
+                method.addStatement("CACHE.remove(db, entity.$L)", pk.getSimpleName());
+            }
+            method.addStatement("return");
+            method.endControlFlow();
+        }
+        method.addStatement("$T statement = STATEMENTS.acquire(db, UPDATE_STATEMENT)", statementClass);
+        method.beginControlFlow("try");
+        method.addStatement("bind(statement, entity)");
+        addBindUpdateKey(method, metadata, "statement");
+        method.addStatement("statement.executeUpdateDelete()");
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, UPDATE_STATEMENT, statement)");
+        method.endControlFlow();
+        addLazyColumnsWritten(method, metadata, false);
+        method.nextControlFlow("else");
+        method.addStatement("$T statement = STATEMENTS.acquire(db, INSERT_STATEMENT)", statementClass);
+        method.beginControlFlow("try");
+        method.addStatement("bind(statement, entity)");
+        method.addStatement("entity.$L = statement.executeInsert()", pk.getSimpleName());
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, INSERT_STATEMENT, statement)");
+        method.endControlFlow();
+        addLazyColumnsWritten(method, metadata, true);
         method.endControlFlow();
+        if (metadata.isTrackChanges()) {
+            method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+        }
+        addTableChanged(method, metadata);
+        if (metadata.isCacheEnabled()) {
+            method.addStatement("CACHE.remove(db, entity.$L)", pk.getSimpleName());
+        }
 
         return method.build();
     }
 
-    private MethodSpec generateSaveEntity(TypeElement type, EntityMetadata metadata) {
-        MethodSpec.Builder method = MethodSpec.methodBuilder("save");
+    private MethodSpec generateSaveAllEntities(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("saveAll");
         method.addAnnotation(Override.class);
         method.addModifiers(Modifier.PUBLIC);
         ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
-        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+        method.addParameter(ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(Collection.class), ClassName.get(type)), "entities")
                 .addAnnotation(nonNullAnnotation)
                 .build());
         method.addParameter(ParameterSpec.builder(ClassName.get(DatabaseProvider.class), "databaseProvider")
@@ -373,21 +1702,157 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
                 .build());
 
         ClassName databaseClass = ClassName.bestGuess("android.database.sqlite.SQLiteDatabase");
+        ClassName statementClass = ClassName.bestGuess("android.database.sqlite.SQLiteStatement");
         method.addStatement("$T db = databaseProvider.getWritableDatabase()", databaseClass);
-        method.addStatement("$T values = toContentValues(entity)", ClassName.bestGuess("android.content.ContentValues"));
+        method.addStatement("$T insertStatement = null", statementClass);
+        method.addStatement("$T updateStatement = null", statementClass);
 
         VariableElement pk = metadata.getPrimaryKey();
-        Column columnAnnotation = pk.getAnnotation(Column.class);
+        method.addStatement("boolean successful = false");
+        method.addStatement("db.beginTransaction()");
+        method.beginControlFlow("try");
+        addRestoreIdsOnRollback(method, type, metadata);
+        method.addStatement("insertStatement = STATEMENTS.acquire(db, INSERT_STATEMENT)");
+        method.addStatement("updateStatement = STATEMENTS.acquire(db, UPDATE_STATEMENT)");
+        method.beginControlFlow("for ($T entity : entities)", ClassName.get(type));
         method.beginControlFlow("if (entity.$L > 0)", pk.getSimpleName());
-        method.addStatement("db.update($S, values, $S, new $T { $T.valueOf(entity.$L) })",
-                metadata.getTableName(),
-                columnAnnotation.name() + " = ?",
-                ArrayTypeName.of(String.class),
-                ClassName.get(String.class),
-                pk.getSimpleName());
+        if (metadata.isTrackChanges()) {
+            method.beginControlFlow("if (updateChanges(db, entity))");
+            method.addStatement("continue");
+            method.endControlFlow();
+        }
+        method.addStatement("bind(updateStatement, entity)");
+        addBindUpdateKey(method, metadata, "updateStatement");
+        method.addStatement("updateStatement.executeUpdateDelete()");
+        addLazyColumnsWritten(method, metadata, false);
         method.nextControlFlow("else");
-        method.addStatement("entity.$L = db.insert($S, null, values)", pk.getSimpleName(), metadata.getTableName());
+        method.addStatement("bind(insertStatement, entity)");
+        method.addStatement("entity.$L = insertStatement.executeInsert()", pk.getSimpleName());
+        addLazyColumnsWritten(method, metadata, true);
+        method.endControlFlow();
+        if (metadata.isTrackChanges()) {
+            method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+        }
+        method.endControlFlow();
+        addTableChanged(method, metadata);
+        method.addStatement("db.setTransactionSuccessful()");
+        method.addStatement("successful = true");
+        if (metadata.isCacheEnabled()) {
+            method.beginControlFlow("for ($T entity : entities)", ClassName.get(type));
+            method.addStatement("CACHE.remove(db, entity.$L)", pk.getSimpleName());
+            method.endControlFlow();
+        }
+        method.nextControlFlow("finally");
+        method.beginControlFlow("if (insertStatement != null)");
+        method.addStatement("STATEMENTS.release(db, INSERT_STATEMENT, insertStatement)");
+        method.endControlFlow();
+        method.beginControlFlow("if (updateStatement != null)");
+        method.addStatement("STATEMENTS.release(db, UPDATE_STATEMENT, updateStatement)");
+        method.endControlFlow();
+        method.addStatement("$T.endTransaction(db, successful)", Transactions.class);
+        method.endControlFlow();
+
+        return method.build();
+    }
+
+    /**
+     * Remembers primary keys of {@code entities}, so the ones assigned by inserts are restored
+     * if the outermost transaction is rolled back.
+     */
+    private void addRestoreIdsOnRollback(MethodSpec.Builder method, TypeElement type, EntityMetadata metadata) {
+        method.addStatement("long[] ids = new long[entities.size()]");
+        method.addStatement("int index = 0");
+        method.beginControlFlow("for ($T entity : entities)", ClassName.get(type));
+        method.addStatement("ids[index++] = entity.$L", metadata.getPrimaryKey().getSimpleName());
+        method.endControlFlow();
+        method.addStatement("$T.onRollback(db, restoreIds(entities, ids))", Transactions.class);
+    }
+
+    /**
+     * Restores the primary key of {@code entity} if the write is made in a transaction that is
+     * rolled back, e.g. a {@link roomie.api.WriteQueue} group retried write by write.
+     */
+    private void addRestoreIdOnRollback(MethodSpec.Builder method, EntityMetadata metadata) {
+        method.beginControlFlow("if (db.inTransaction())");
+        method.addStatement("$T.onRollback(db, restoreIds($T.singletonList(entity), new long[] { entity.$L }))",
+                Transactions.class,
+                Collections.class,
+                metadata.getPrimaryKey().getSimpleName());
         method.endControlFlow();
+    }
+
+    private void addBindUpdateKey(MethodSpec.Builder method, EntityMetadata metadata, String statement) {
+        List<VariableElement> columns = metadata.getColumns();
+        method.addStatement("$L.bindLong($L, entity.$L)",
+                statement, columns.size() + 1, metadata.getPrimaryKey().getSimpleName());
+        List<VariableElement> lazyColumns = metadata.getLazyColumns();
+        for (int i = 0, size = lazyColumns.size(); i < size; i++) {
+            VariableElement column = lazyColumns.get(i);
+            method.addStatement("$L.bindLong($L, entity.$L != null || LAZY.isLoaded(entity, $L) ? 1 : 0)",
+                    statement, columns.size() + 2 + i, column.getSimpleName(), getLazyColumn(metadata, column));
+        }
+    }
+
+    /**
+     * Marks lazy columns stored by a write as loaded, an insert stores all of them
+     * while an update skips the ones not loaded and still {@code null}.
+     */
+    private void addLazyColumnsWritten(MethodSpec.Builder method, EntityMetadata metadata, boolean inserted) {
+        List<VariableElement> lazyColumns = metadata.getLazyColumns();
+        if (lazyColumns.isEmpty()) {
+            return;
+        }
+        if (inserted) {
+            method.addStatement("LAZY.setLoaded(entity, $L)", getAllLazyColumns(metadata));
+            return;
+        }
+        List<String> written = new ArrayList<>();
+        for (VariableElement column : lazyColumns) {
+            written.add(String.format("(entity.%s != null ? %s : 0L)",
+                    column.getSimpleName(), getLazyColumn(metadata, column)));
+        }
+        method.addStatement("LAZY.setLoaded(entity, $L)", StringUtils.join(written, " | "));
+    }
+
+    /**
+     * @return literal of the lazy column bit in the {@link LazyColumns} mask
+     */
+    private static String getLazyColumn(EntityMetadata metadata, VariableElement column) {
+        return (1L << metadata.getLazyColumns().indexOf(column)) + "L";
+    }
+
+    /**
+     * @return literal of the {@link LazyColumns} mask having all lazy columns set
+     */
+    private static String getAllLazyColumns(EntityMetadata metadata) {
+        int count = metadata.getLazyColumns().size();
+        return (count == Long.SIZE ? -1L : (1L << count) - 1) + "L";
+    }
+
+    private MethodSpec generateRestoreIds(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("restoreIds");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.returns(Runnable.class);
+        ClassName entityClass = ClassName.get(type);
+        method.addParameter(ParameterizedTypeName.get(ClassName.get(Collection.class), entityClass),
+                "entities", Modifier.FINAL);
+        method.addParameter(ArrayTypeName.of(TypeName.LONG), "ids", Modifier.FINAL);
+
+        // the rolled back values of tracked entities aren't stored, so they are written as a whole next time
+        MethodSpec.Builder run = MethodSpec.methodBuilder("run")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("int index = 0")
+                .beginControlFlow("for ($T entity : entities)", entityClass)
+                .addStatement("entity.$L = ids[index++]", metadata.getPrimaryKey().getSimpleName());
+        if (metadata.isTrackChanges()) {
+            run.addStatement("TRACKER.forget(entity)");
+        }
+        run.endControlFlow();
+        method.addStatement("return $L", TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(Runnable.class)
+                .addMethod(run.build())
+                .build());
 
         return method.build();
     }
@@ -421,63 +1886,103 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         return method.build();
     }
 
-    private MethodSpec generateReadData(TypeElement type, EntityMetadata metadata) throws AbortProcessingException {
+    private MethodSpec generateReadData(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) throws AbortProcessingException {
         MethodSpec.Builder method = MethodSpec.methodBuilder("loadFromCursor");
         method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
         method.addParameter(ClassName.get(type), "entity");
         method.addParameter(ClassName.bestGuess("android.database.Cursor"), "cursor");
 
-        method.addStatement("$1T registry = $1T.getInstance()", ClassName.get(TypeAdapterRegistry.class));
+        addReadColumns(method, metadata.getEagerColumns(), null, typeAdapters);
+        if (metadata.isTrackChanges()) {
+            method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+        }
 
-        List<VariableElement> columns = metadata.getAllColumns();
+        return method.build();
+    }
+
+    private MethodSpec generateReadDeferredData(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("loadDeferredFromCursor");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.get(type), "entity");
+        method.addParameter(ClassName.bestGuess("android.database.Cursor"), "cursor");
+        method.addParameter(TypeName.INT, "offset");
+
+        addReadColumns(method, metadata.getLazyColumns(), "offset", typeAdapters);
+        method.addStatement("LAZY.setLoaded(entity, $L)", getAllLazyColumns(metadata));
+        if (metadata.isTrackChanges()) {
+            method.addStatement("$T[] snapshot = TRACKER.getSnapshot(entity)", Object.class);
+            method.beginControlFlow("if (snapshot != null)");
+            List<VariableElement> columns = metadata.getColumns();
+            for (VariableElement column : metadata.getLazyColumns()) {
+                method.addStatement("snapshot[$L] = $L", columns.indexOf(column), getSnapshotValue(column));
+            }
+            method.endControlFlow();
+        }
+
+        return method.build();
+    }
+
+    private void addReadColumns(MethodSpec.Builder method, List<VariableElement> columns, String offset,
+            Map<TypeName, String> typeAdapters) {
         for (int i = 0, size = columns.size(); i < size; i++) {
             VariableElement column = columns.get(i);
-            TypeName typeAdapter = getTypeAdapter(column);
-            if (typeAdapter == null) {
-                throw new AbortProcessingException(
-                        column,
-                        "%s has unsupported type %s for saving to database",
-                        column.getSimpleName(), column.asType());
+            String target = "entity." + column.getSimpleName();
+            String index;
+            if (offset == null) {
+                index = String.valueOf(i);
+            } else {
+                index = i > 0 ? offset + " + " + i : offset;
             }
-
-            method.addStatement("entity.$L = registry.getTypeAdapter($T.class).read($L, cursor)",
-                    column.getSimpleName(),
-                    typeAdapter,
-                    i);
+            addReadColumn(method, column, target, index, typeAdapters);
         }
+    }
 
-        return method.build();
+    void addReadColumn(MethodSpec.Builder method, VariableElement column, String target, String index,
+            Map<TypeName, String> typeAdapters) {
+        TypeName typeAdapter = getTypeAdapter(column);
+        String primitiveAccessor = getPrimitiveAccessor(column, typeAdapter);
+        if (isInlineType(column, typeAdapter)) {
+            method.addCode(InlineAccessors.read(TypeName.get(column.asType()), "cursor", index, target));
+        } else if (primitiveAccessor != null) {
+            method.addStatement("$L = $L.read$L($L, cursor)",
+                    target, typeAdapters.get(typeAdapter), primitiveAccessor, index);
+        } else {
+            method.addStatement("$L = $L.read($L, cursor)", target, typeAdapters.get(typeAdapter), index);
+        }
     }
 
-    private MethodSpec generateWriteData(TypeElement type, EntityMetadata metadata) throws AbortProcessingException {
+    private MethodSpec generateWriteData(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) throws AbortProcessingException {
         MethodSpec.Builder method = MethodSpec.methodBuilder("toContentValues");
-        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
         method.addParameter(ClassName.get(type), "entity");
         ClassName contentValuesType = ClassName.bestGuess("android.content.ContentValues");
         method.returns(contentValuesType);
 
-        method.addStatement("$1T values = new $1T()", contentValuesType);
-        method.addStatement("$1T registry = $1T.getInstance()", ClassName.get(TypeAdapterRegistry.class));
-
         List<VariableElement> columns = metadata.getAllColumns();
+        method.addStatement("$1T values = new $1T($2L)", contentValuesType, columns.size());
+
         for (VariableElement column : columns) {
             TypeName typeAdapter = getTypeAdapter(column);
-            if (typeAdapter == null) {
-                throw new AbortProcessingException(
-                        column,
-                        "%s has unsupported type %s for saving to database",
-                        column.getSimpleName(), column.asType());
-            }
-
             PrimaryKey pk = column.getAnnotation(PrimaryKey.class);
             if (pk != null) {
                 method.beginControlFlow("if (entity.$L > 0)", column.getSimpleName());
+            } else if (metadata.isLazy(column)) {
+                method.beginControlFlow("if (entity.$L != null || LAZY.isLoaded(entity, $L))",
+                        column.getSimpleName(), getLazyColumn(metadata, column));
             }
-            method.addStatement("registry.getTypeAdapter($T.class).write($S, entity.$L, values)",
-                    typeAdapter,
-                    getColumnName(column),
-                    column.getSimpleName());
-            if (pk != null) {
+            String value = "entity." + column.getSimpleName();
+            if (isInlineType(column, typeAdapter)) {
+                method.addCode(InlineAccessors.write(TypeName.get(column.asType()), "values", getColumnName(column), value));
+            } else {
+                method.addStatement("$L.write($S, $L, values)",
+                        typeAdapters.get(typeAdapter),
+                        getColumnName(column),
+                        value);
+            }
+            if (pk != null || metadata.isLazy(column)) {
                 method.endControlFlow();
             }
         }
@@ -487,9 +1992,292 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         return method.build();
     }
 
-    private EntityMetadata obtainEntityMetadata(TypeElement annotatedClass) throws AbortProcessingException {
+    private FieldSpec generateCache(TypeElement type, EntityMetadata metadata) {
+        ParameterizedTypeName cacheType = ParameterizedTypeName.get(ClassName.get(EntityCache.class), ClassName.get(type));
+        return FieldSpec.builder(cacheType, "CACHE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc("Entities fully loaded by {@code load()}. Entries are private copies, never handed out.\n")
+                .initializer("new $T<>($S, $L)", cacheType.rawType, metadata.getTableName(), metadata.getCacheSize())
+                .build();
+    }
+
+    private MethodSpec generateCopy(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("copy");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.get(type), "from");
+        method.addParameter(ClassName.get(type), "to");
+
+        for (VariableElement column : metadata.getAllColumns()) {
+            TypeName columnType = TypeName.get(column.asType());
+            Name name = column.getSimpleName();
+            if (ArrayTypeName.of(TypeName.BYTE).equals(columnType)) {
+                method.addStatement("to.$1L = from.$1L != null ? from.$1L.clone() : null", name);
+            } else if (ClassName.get(Date.class).equals(columnType)) {
+                method.addStatement("to.$1L = from.$1L != null ? new $2T(from.$1L.getTime()) : null", name, Date.class);
+            } else {
+                method.addStatement("to.$1L = from.$1L", name);
+            }
+        }
+
+        return method.build();
+    }
+
+    private MethodSpec generateCopyAll(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("copyAll");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        ClassName entityClass = ClassName.get(type);
+        ParameterizedTypeName listType = ParameterizedTypeName.get(ClassName.get(List.class), entityClass);
+        method.addParameter(listType, "entities");
+        method.returns(listType);
+
+        method.addStatement("$T copies = new $T<>(entities.size())", listType, ArrayList.class);
+        method.beginControlFlow("for ($T entity : entities)", entityClass);
+        method.addStatement("$1T copy = new $1T()", entityClass);
+        method.addStatement("copy(entity, copy)");
+        method.addStatement("copies.add(copy)");
+        method.endControlFlow();
+        method.addStatement("return copies");
+
+        return method.build();
+    }
+
+    /**
+     * Declares {@code cacheable} and {@code version} and returns copies of the cached result of
+     * {@code sql} if there is one. Reads inside a transaction bypass the cache, as they may see its
+     * uncommitted writes which are reported only when it ends.
+     */
+    private void addCachedResultLookup(MethodSpec.Builder method, EntityMetadata metadata,
+            ParameterizedTypeName listType, String args, boolean firstOnly) {
+        method.addStatement("boolean cacheable = !db.inTransaction()");
+        method.addStatement("long version = $T.getInstance().getVersion($S)", QueryCache.class, metadata.getTableName());
+        method.beginControlFlow("if (cacheable)");
+        method.addStatement("$T cached = $T.getInstance().get($S, sql, $L)",
+                listType, QueryCache.class, metadata.getTableName(), args);
+        method.beginControlFlow("if (cached != null)");
+        if (metadata.isTrackChanges()) {
+            // cached copies aren't tracked, the ones handed out are
+            method.addStatement("$T copies = copyAll(cached)", listType);
+            method.beginControlFlow("for ($T entity : copies)", listType.typeArguments.get(0));
+            method.addStatement("TRACKER.snapshot(entity, takeSnapshot(entity))");
+            method.endControlFlow();
+            method.addStatement(firstOnly ? "return !copies.isEmpty() ? copies.get(0) : null" : "return copies");
+        } else if (firstOnly) {
+            method.addStatement("return !cached.isEmpty() ? copyAll(cached).get(0) : null");
+        } else {
+            method.addStatement("return copyAll(cached)");
+        }
+        method.endControlFlow();
+        method.endControlFlow();
+    }
+
+    /**
+     * Reports the write to {@link QueryCache} and {@link InvalidationTracker}, deferred to the end
+     * of the outermost transaction if {@code db} is in one. Written entities are evicted from
+     * {@code CACHE} afterwards.
+     */
+    private void addTableChanged(MethodSpec.Builder method, EntityMetadata metadata) {
+        method.addStatement("$T.rowsChanged(db, $S)", Transactions.class, metadata.getTableName());
+    }
+
+    /**
+     * @return SQL of a bulk query, used as a {@link QueryCache} key
+     */
+    private String buildSelectSql(EntityMetadata metadata, String where, boolean firstOnly) {
+        List<String> columns = new ArrayList<>();
+        for (VariableElement column : metadata.getEagerColumns()) {
+            columns.add("`" + getColumnName(column) + "`");
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(StringUtils.join(columns, ", "))
+                .append(" FROM `").append(metadata.getTableName()).append('`');
+        if (where != null) {
+            sql.append(" WHERE ").append(where)
+                    .append(" ORDER BY `").append(getColumnName(metadata.getPrimaryKey())).append('`');
+        }
+        if (firstOnly) {
+            sql.append(" LIMIT 1");
+        }
+        return sql.toString();
+    }
+
+    private MethodSpec generateUpdateCache(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("updateCache");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.get(type), "entity");
+        method.addParameter(TypeName.LONG, "version");
+
+        method.addStatement("$1T copy = new $1T()", ClassName.get(type));
+        method.addStatement("copy(entity, copy)");
+        method.addStatement("CACHE.put(entity.$L, copy, version)", metadata.getPrimaryKey().getSimpleName());
+
+        return method.build();
+    }
+
+    /**
+     * @return accessor of a {@link EntityCache} statistic, e.g. to tune {@code cacheSize}
+     */
+    private MethodSpec generateCacheCount(String name, String counter) {
+        return MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(TypeName.INT)
+                .addStatement("return CACHE.$L()", counter)
+                .build();
+    }
+
+    private MethodSpec generateTakeSnapshot(TypeElement type, EntityMetadata metadata) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("takeSnapshot");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addParameter(ClassName.get(type), "entity");
+        method.returns(ArrayTypeName.of(Object.class));
+
+        CodeBlock.Builder values = CodeBlock.builder();
+        values.beginControlFlow("return new $T", ArrayTypeName.of(Object.class));
+        List<VariableElement> columns = metadata.getColumns();
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (i > 0) {
+                values.add(",\n");
+            }
+            values.add(getSnapshotValue(columns.get(i)));
+        }
+        values.add("\n");
+        values.unindent();
+        values.add("};\n");
+        method.addCode(values.build());
+
+        return method.build();
+    }
+
+    private MethodSpec generateUpdateChanges(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("updateChanges");
+        method.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        method.addJavadoc("@return {@code false} if the entity isn't tracked and has to be updated as a whole\n");
+        method.addParameter(ClassName.bestGuess("android.database.sqlite.SQLiteDatabase"), "db");
+        method.addParameter(ClassName.get(type), "entity");
+        method.returns(TypeName.BOOLEAN);
+
+        method.addStatement("$T[] previous = TRACKER.getSnapshot(entity)", Object.class);
+        method.beginControlFlow("if (previous == null)");
+        method.addStatement("return false");
+        method.endControlFlow();
+
+        VariableElement pk = metadata.getPrimaryKey();
+        List<VariableElement> columns = metadata.getColumns();
+        method.addStatement("$T[] current = takeSnapshot(entity)", Object.class);
+        method.addStatement("boolean[] changed = new boolean[$L]", columns.size());
+        method.addStatement("$T sql = new $T($S)", StringBuilder.class, StringBuilder.class,
+                "UPDATE `" + metadata.getTableName() + "` SET ");
+        method.addStatement("int count = 0");
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            VariableElement column = columns.get(i);
+            if (metadata.isLazy(column)) {
+                // not loaded lazy column is neither written nor forgotten
+                method.beginControlFlow("if (current[$L] == null && !LAZY.isLoaded(entity, $L))",
+                        i, getLazyColumn(metadata, column));
+                method.addStatement("current[$1L] = previous[$1L]", i);
+                method.nextControlFlow("else if ($T.isChanged(previous[$L], current[$L]))", ChangeTracker.class, i, i);
+            } else {
+                method.beginControlFlow("if ($T.isChanged(previous[$L], current[$L]))", ChangeTracker.class, i, i);
+            }
+            method.addStatement("sql.append(count++ > 0 ? $S : $S)",
+                    ", `" + getColumnName(column) + "` = ?",
+                    "`" + getColumnName(column) + "` = ?");
+            method.addStatement("changed[$L] = true", i);
+            method.endControlFlow();
+        }
+        method.beginControlFlow("if (count > 0)");
+        method.addStatement("String update = sql.append($S).toString()", " WHERE `" + getColumnName(pk) + "` = ?");
+        method.addStatement("$T statement = STATEMENTS.acquire(db, update)",
+                ClassName.bestGuess("android.database.sqlite.SQLiteStatement"));
+        method.beginControlFlow("try");
+        method.addStatement("int index = 1");
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            method.beginControlFlow("if (changed[$L])", i);
+            addBindColumn(method, columns.get(i), "index++", typeAdapters);
+            method.endControlFlow();
+        }
+        method.addStatement("statement.bindLong(index, entity.$L)", pk.getSimpleName());
+        method.addStatement("statement.executeUpdateDelete()");
+        method.nextControlFlow("finally");
+        method.addStatement("STATEMENTS.release(db, update, statement)");
+        method.endControlFlow();
+        addLazyColumnsWritten(method, metadata, false);
+        addTableChanged(method, metadata);
+        method.endControlFlow();
+        method.addStatement("TRACKER.snapshot(entity, current)");
+        method.addStatement("return true");
+
+        return method.build();
+    }
+
+    /**
+     * @return expression of the column value as kept by {@link ChangeTracker}, mutable
+     * built-in types are copied
+     */
+    private CodeBlock getSnapshotValue(VariableElement column) {
+        TypeName type = TypeName.get(column.asType());
+        Name name = column.getSimpleName();
+        if (ArrayTypeName.of(TypeName.BYTE).equals(type)) {
+            return CodeBlock.of("entity.$1L != null ? entity.$1L.clone() : null", name);
+        } else if (ClassName.get(Date.class).equals(type)) {
+            return CodeBlock.of("entity.$1L != null ? entity.$1L.getTime() : null", name);
+        }
+        return CodeBlock.of("entity.$L", name);
+    }
+
+    private MethodSpec generateBindData(TypeElement type, EntityMetadata metadata,
+            Map<TypeName, String> typeAdapters) throws AbortProcessingException {
+        MethodSpec.Builder method = MethodSpec.methodBuilder("bind");
+        method.addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+        ClassName nonNullAnnotation = ClassName.bestGuess("android.support.annotation.NonNull");
+        method.addParameter(ParameterSpec.builder(ClassName.bestGuess("android.database.sqlite.SQLiteStatement"), "statement")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+        method.addParameter(ParameterSpec.builder(ClassName.get(type), "entity")
+                .addAnnotation(nonNullAnnotation)
+                .build());
+
+        List<VariableElement> columns = metadata.getColumns();
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            addBindColumn(method, columns.get(i), String.valueOf(i + 1), typeAdapters);
+        }
+
+        return method.build();
+    }
+
+    private void addBindColumn(MethodSpec.Builder method, VariableElement column, String index,
+            Map<TypeName, String> typeAdapters) {
+        TypeName typeAdapter = getTypeAdapter(column);
+        String value = "entity." + column.getSimpleName();
+        String primitiveAccessor = getPrimitiveAccessor(column, typeAdapter);
+        if (isInlineType(column, typeAdapter)) {
+            method.addCode(InlineAccessors.bind(TypeName.get(column.asType()), "statement", index, value));
+        } else if (primitiveAccessor != null) {
+            method.addStatement("$L.bind$L(statement, $L, $L)",
+                    typeAdapters.get(typeAdapter), primitiveAccessor, index, value);
+        } else {
+            method.addStatement("$L.bind(statement, $L, $L)", typeAdapters.get(typeAdapter), index, value);
+        }
+    }
+
+    EntityMetadata obtainEntityMetadata(TypeElement annotatedClass) throws AbortProcessingException {
         Entity entityAnnotation = annotatedClass.getAnnotation(Entity.class);
         EntityMetadata metadata = new EntityMetadata(entityAnnotation.table());
+        if (entityAnnotation.version() < 1) {
+            throw new AbortProcessingException(
+                    annotatedClass,
+                    "Version of entity %s must be positive",
+                    annotatedClass.getSimpleName());
+        }
+        metadata.setVersion(entityAnnotation.version());
+        metadata.setTrackChanges(entityAnnotation.trackChanges());
+        if (entityAnnotation.cacheSize() < 0) {
+            throw new AbortProcessingException(
+                    annotatedClass,
+                    "Cache size of entity %s can't be negative",
+                    annotatedClass.getSimpleName());
+        }
+        metadata.setCacheSize(entityAnnotation.cacheSize());
+        metadata.setCacheQueries(entityAnnotation.cacheQueries());
 
         for (Element element : annotatedClass.getEnclosedElements()) {
             if (element.getKind() != ElementKind.FIELD) {
@@ -507,6 +2295,48 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
             }
 
             VariableElement field = (VariableElement) element;
+            if (columnAnnotation.lazy()) {
+                if (field.getAnnotation(PrimaryKey.class) != null) {
+                    throw new AbortProcessingException(
+                            field,
+                            "Primary key %s can't be lazy",
+                            field.getSimpleName());
+                }
+                if (field.asType().getKind().isPrimitive()) {
+                    throw new AbortProcessingException(
+                            field,
+                            "Lazy column %s must be of a reference type",
+                            field.getSimpleName());
+                }
+            }
+            if (field.getAnnotation(Unique.class) != null) {
+                if (field.getAnnotation(PrimaryKey.class) != null) {
+                    throw new AbortProcessingException(
+                            field,
+                            "Primary key %s is unique already and can't be marked with @Unique",
+                            field.getSimpleName());
+                }
+                if (columnAnnotation.lazy()) {
+                    throw new AbortProcessingException(
+                            field,
+                            "Unique column %s can't be lazy",
+                            field.getSimpleName());
+                }
+            }
+            if (columnAnnotation.groupable()) {
+                if (field.getAnnotation(PrimaryKey.class) != null) {
+                    throw new AbortProcessingException(
+                            field,
+                            "Primary key %s is unique and can't be groupable",
+                            field.getSimpleName());
+                }
+                if (DatabaseType.BLOB.equals(getDatabaseType(field))) {
+                    throw new AbortProcessingException(
+                            field,
+                            "BLOB column %s can't be groupable",
+                            field.getSimpleName());
+                }
+            }
             if (field.getAnnotation(PrimaryKey.class) != null) {
                 if (!TypeName.LONG.equals(TypeName.get(field.asType()))) {
                     throw new AbortProcessingException(
@@ -533,10 +2363,99 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
                     annotatedClass.getSimpleName());
         }
 
+        if (metadata.getLazyColumns().size() > Long.SIZE) {
+            throw new AbortProcessingException(
+                    annotatedClass,
+                    "Entity %s can't have more than %d lazy columns",
+                    annotatedClass.getSimpleName(),
+                    Long.SIZE);
+        }
+
+        obtainIndices(annotatedClass, metadata);
+
         return metadata;
     }
 
-    private String getColumnName(VariableElement field) {
+    private void obtainIndices(TypeElement annotatedClass, EntityMetadata metadata) throws AbortProcessingException {
+        List<String> columnNames = new ArrayList<>();
+        for (VariableElement column : metadata.getAllColumns()) {
+            columnNames.add(getColumnName(column));
+        }
+
+        for (Index index : annotatedClass.getAnnotationsByType(Index.class)) {
+            if (index.columns().length == 0) {
+                throw new AbortProcessingException(
+                        annotatedClass,
+                        "Index of entity %s must define its columns",
+                        annotatedClass.getSimpleName());
+            }
+            for (String column : index.columns()) {
+                if (!columnNames.contains(column)) {
+                    throw new AbortProcessingException(
+                            annotatedClass,
+                            "Index of entity %s refers to unknown column %s",
+                            annotatedClass.getSimpleName(),
+                            column);
+                }
+            }
+            addIndex(metadata, index, Arrays.asList(index.columns()));
+        }
+
+        for (VariableElement column : metadata.getAllColumns()) {
+            for (Index index : column.getAnnotationsByType(Index.class)) {
+                if (index.columns().length > 0) {
+                    throw new AbortProcessingException(
+                            column,
+                            "Column index of %s can't define columns, declare a composite index on the entity",
+                            column.getSimpleName());
+                }
+                addIndex(metadata, index, Collections.singletonList(getColumnName(column)));
+            }
+        }
+
+        for (VariableElement column : metadata.getUniqueColumns()) {
+            String columnName = getColumnName(column);
+            metadata.addIndex(new IndexMetadata(
+                    "index_" + metadata.getTableName() + "_" + columnName + "_unique",
+                    Collections.singletonList(columnName),
+                    true,
+                    ""));
+        }
+
+        Set<String> indexNames = new HashSet<>();
+        for (IndexMetadata index : metadata.getIndices()) {
+            if (!indexNames.add(index.getName())) {
+                throw new AbortProcessingException(
+                        annotatedClass,
+                        "Entity %s declares index %s more than once",
+                        annotatedClass.getSimpleName(),
+                        index.getName());
+            }
+        }
+    }
+
+    private void addIndex(EntityMetadata metadata, Index index, List<String> columns) {
+        String name = index.name();
+        if (name.isEmpty()) {
+            name = "index_" + metadata.getTableName() + "_" + StringUtils.join(columns, '_');
+        }
+        metadata.addIndex(new IndexMetadata(name, columns, index.unique(), index.where()));
+    }
+
+    /**
+     * @return {@code true} if the column leads any of the entity indices
+     */
+    private boolean isIndexed(EntityMetadata metadata, VariableElement column) {
+        String columnName = getColumnName(column);
+        for (IndexMetadata index : metadata.getIndices()) {
+            if (index.getColumns().get(0).equals(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String getColumnName(VariableElement field) {
         String columnName = field.getAnnotation(Column.class).name();
         if (columnName.isEmpty()) {
             columnName = field.getSimpleName().toString().toUpperCase();
@@ -544,6 +2463,17 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         return columnName;
     }
 
+    /**
+     * @return SQL literal of the column default value or {@code null} if it has none
+     */
+    private String getDefaultValue(VariableElement field) throws AbortProcessingException {
+        String defaultValue = field.getAnnotation(Column.class).defaultValue();
+        if (StringUtils.isEmpty(defaultValue)) {
+            return null;
+        }
+        return getDatabaseType(field).equals(DatabaseType.TEXT) ? "'" + defaultValue + "'" : defaultValue;
+    }
+
     private TypeName getTypeAdapter(VariableElement field) {
         TypeMirror adapter = null;
         try {
@@ -565,6 +2495,48 @@ public class EntityHelperProcessor extends BaseAnnotationProcessor {
         return adapterClassName;
     }
 
+    /**
+     * Built-in types using their default adapter are read and written by the generated code
+     * directly, without going through a {@link TypeAdapter}.
+     */
+    private boolean isInlineType(VariableElement field, TypeName typeAdapter) {
+        return typeAdapter.equals(findDefaultTypeAdapter(field))
+                && InlineAccessors.isSupported(TypeName.get(field.asType()));
+    }
+
+    /**
+     * @return name of the primitive {@code readXXX()}/{@code bindXXX()} pair if the column field
+     * is a primitive and its adapter implements the matching column adapter, e.g.
+     * {@link LongColumnAdapter} for {@code long} fields, {@code null} otherwise
+     */
+    private String getPrimitiveAccessor(VariableElement field, TypeName typeAdapter) {
+        TypeName fieldType = TypeName.get(field.asType());
+        Class<?> columnAdapter;
+        if (TypeName.LONG.equals(fieldType)) {
+            columnAdapter = LongColumnAdapter.class;
+        } else if (TypeName.INT.equals(fieldType)) {
+            columnAdapter = IntColumnAdapter.class;
+        } else if (TypeName.DOUBLE.equals(fieldType)) {
+            columnAdapter = DoubleColumnAdapter.class;
+        } else if (TypeName.BOOLEAN.equals(fieldType)) {
+            columnAdapter = BooleanColumnAdapter.class;
+        } else {
+            return null;
+        }
+
+        TypeElement adapterElement = elementUtils.getTypeElement(typeAdapter.toString());
+        TypeElement columnAdapterElement = elementUtils.getTypeElement(columnAdapter.getCanonicalName());
+        if (adapterElement == null || columnAdapterElement == null) {
+            return null;
+        }
+        Types typeUtils = processingEnv.getTypeUtils();
+        if (!typeUtils.isAssignable(adapterElement.asType(), typeUtils.erasure(columnAdapterElement.asType()))) {
+            return null;
+        }
+        String simpleName = columnAdapter.getSimpleName();
+        return simpleName.substring(0, simpleName.length() - "ColumnAdapter".length());
+    }
+
     private TypeName findDefaultTypeAdapter(VariableElement element) {
         TypeName elementType = TypeName.get(element.asType());
         Class<? extends TypeAdapter<?>> adapterClass = TypeMapping.findAdapter(elementType);
@@ -24,6 +24,9 @@ import java.util.List;
 
 import javax.lang.model.element.VariableElement;
 
+import roomie.api.Column;
+import roomie.api.Unique;
+
 public class EntityMetadata {
     private final String tableName;
 
@@ -31,6 +34,16 @@ public class EntityMetadata {
 
     private List<VariableElement> columns = new ArrayList<>();
 
+    private List<IndexMetadata> indices = new ArrayList<>();
+
+    private int version;
+
+    private boolean trackChanges;
+
+    private int cacheSize;
+
+    private boolean cacheQueries;
+
     public EntityMetadata(String tableName) {
         this.tableName = tableName;
     }
@@ -47,6 +60,42 @@ public class EntityMetadata {
         this.primaryKey = primaryKey;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public boolean isTrackChanges() {
+        return trackChanges;
+    }
+
+    public void setTrackChanges(boolean trackChanges) {
+        this.trackChanges = trackChanges;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheSize > 0;
+    }
+
+    public boolean isCacheQueries() {
+        return cacheQueries;
+    }
+
+    public void setCacheQueries(boolean cacheQueries) {
+        this.cacheQueries = cacheQueries;
+    }
+
     public void addColumn(VariableElement column) {
         this.columns.add(column);
     }
@@ -65,6 +114,57 @@ public class EntityMetadata {
         return allColumns;
     }
 
+    public void addIndex(IndexMetadata index) {
+        this.indices.add(index);
+    }
+
+    public List<IndexMetadata> getIndices() {
+        return indices;
+    }
+
+    /**
+     * @return primary key and columns loaded by bulk queries
+     */
+    public List<VariableElement> getEagerColumns() {
+        List<VariableElement> eagerColumns = new ArrayList<>();
+        for (VariableElement column : getAllColumns()) {
+            if (!isLazy(column)) {
+                eagerColumns.add(column);
+            }
+        }
+        return eagerColumns;
+    }
+
+    /**
+     * @return columns loaded on demand only
+     */
+    public List<VariableElement> getLazyColumns() {
+        List<VariableElement> lazyColumns = new ArrayList<>();
+        for (VariableElement column : columns) {
+            if (isLazy(column)) {
+                lazyColumns.add(column);
+            }
+        }
+        return lazyColumns;
+    }
+
+    /**
+     * @return natural key columns used to resolve upserts
+     */
+    public List<VariableElement> getUniqueColumns() {
+        List<VariableElement> uniqueColumns = new ArrayList<>();
+        for (VariableElement column : columns) {
+            if (column.getAnnotation(Unique.class) != null) {
+                uniqueColumns.add(column);
+            }
+        }
+        return uniqueColumns;
+    }
+
+    public boolean isLazy(VariableElement column) {
+        return column.getAnnotation(Column.class).lazy();
+    }
+
     public boolean isValid() {
         return StringUtils.isNotEmpty(tableName) && primaryKey != null;
     }
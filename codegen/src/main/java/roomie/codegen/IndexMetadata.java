@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen;
+
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+
+public class IndexMetadata {
+    private final String name;
+    private final List<String> columns;
+    private final boolean unique;
+    private final String where;
+
+    public IndexMetadata(String name, List<String> columns, boolean unique, String where) {
+        this.name = name;
+        this.columns = columns;
+        this.unique = unique;
+        this.where = where;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public String getCreateStatement(String tableName) {
+        StringBuilder statement = new StringBuilder("CREATE ");
+        if (unique) {
+            statement.append("UNIQUE ");
+        }
+        statement.append("INDEX IF NOT EXISTS `").append(name).append("` ON `").append(tableName).append("` (");
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (i > 0) {
+                statement.append(", ");
+            }
+            statement.append('`').append(columns.get(i)).append('`');
+        }
+        statement.append(')');
+        if (StringUtils.isNotEmpty(where)) {
+            statement.append(" WHERE ").append(where);
+        }
+        return statement.toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen;
+
+
+import android.support.annotation.Nullable;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeMirror;
+
+import roomie.api.Column;
+import roomie.api.Entity;
+import roomie.api.Projection;
+
+/**
+ * Generates the helpers of {@link Projection} classes. A projection helper is built from the
+ * members of both the projection and its entity, so unlike entity helpers it isn't isolated
+ * to a single source and the processor is registered as aggregating.
+ */
+@SuppressWarnings("unused") // class is used by @AutoService
+@AutoService(Processor.class)
+@SupportedAnnotationTypes("roomie.api.Projection")
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class ProjectionProcessor extends EntityHelperProcessor {
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        Set<? extends Element> projectionClasses =
+                roundEnv.getElementsAnnotatedWith(Projection.class);
+        if (projectionClasses.isEmpty()) {
+            return true; // early exit
+        }
+
+        for (Element element : projectionClasses) {
+            if (element.getKind() != ElementKind.CLASS) {
+                logger.error(element,
+                        "%s can be applied only to classes",
+                        Projection.class.getSimpleName());
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                logger.error(type, "Projection can't be a private class");
+                continue;
+            }
+
+            TypeElement entityClass = getProjectionEntity(type);
+            if (entityClass == null || entityClass.getAnnotation(Entity.class) == null) {
+                logger.error(type,
+                        "Projection %s must refer to an %s class",
+                        type.getSimpleName(),
+                        Entity.class.getSimpleName());
+                continue;
+            }
+
+            String packageName = getPackageName(element);
+            String className = type.getSimpleName() + ENTITY_HELPER_POSTFIX;
+
+            try {
+                TypeSpec fileContent = generateProjectionClass(type, entityClass, className);
+
+                // the helper has to be regenerated when either of the classes changes
+                writeSourceFile(className, packageName, fileContent, type, entityClass);
+            } catch (AbortProcessingException e) {
+                logger.error(e.getAssociatedElement(), e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private TypeSpec generateProjectionClass(TypeElement projectionClass, TypeElement entityClass,
+            String className) throws AbortProcessingException {
+        EntityMetadata entityMetadata = obtainEntityMetadata(entityClass);
+
+        // the projection reads the entity columns matching its fields
+        EntityMetadata metadata = new EntityMetadata(entityMetadata.getTableName());
+        List<VariableElement> fields = new ArrayList<>();
+        for (Element element : projectionClass.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.FIELD || element.getAnnotation(Column.class) == null) {
+                continue;
+            }
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                logger.warn(element, "%s is private. Skip column data", element.getSimpleName());
+                continue;
+            }
+
+            VariableElement field = (VariableElement) element;
+            String columnName = getColumnName(field);
+            VariableElement column = null;
+            for (VariableElement entityColumn : entityMetadata.getAllColumns()) {
+                if (getColumnName(entityColumn).equals(columnName)) {
+                    column = entityColumn;
+                    break;
+                }
+            }
+            if (column == null) {
+                throw new AbortProcessingException(
+                        field,
+                        "Entity %s has no column %s",
+                        entityClass.getSimpleName(),
+                        columnName);
+            }
+            if (!TypeName.get(field.asType()).equals(TypeName.get(column.asType()))) {
+                throw new AbortProcessingException(
+                        field,
+                        "%s must be of type %s to match column %s",
+                        field.getSimpleName(),
+                        column.asType(),
+                        columnName);
+            }
+            metadata.addColumn(column);
+            fields.add(field);
+        }
+        if (fields.isEmpty()) {
+            throw new AbortProcessingException(
+                    projectionClass,
+                    "Projection %s has no columns",
+                    projectionClass.getSimpleName());
+        }
+
+        TypeSpec.Builder classBuilder = TypeSpec.classBuilder(className);
+        classBuilder.addModifiers(Modifier.PUBLIC);
+
+        Map<TypeName, String> typeAdapters = collectTypeAdapters(metadata);
+        classBuilder.addField(generateProjection("PROJECTION", metadata.getColumns()));
+        for (Map.Entry<TypeName, String> typeAdapter : typeAdapters.entrySet()) {
+            classBuilder.addField(generateTypeAdapterField(typeAdapter.getKey(), typeAdapter.getValue()));
+        }
+        classBuilder.addField(generateRowMapper(projectionClass, metadata));
+        classBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PRIVATE)
+                .build());
+        classBuilder.addMethod(generateQueryAll(projectionClass, metadata));
+        classBuilder.addMethod(generateIterateAll(projectionClass, metadata));
+
+        MethodSpec.Builder readData = MethodSpec.methodBuilder("loadFromCursor");
+        readData.addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+        readData.addParameter(ClassName.get(projectionClass), "projection");
+        readData.addParameter(ClassName.bestGuess("android.database.Cursor"), "cursor");
+        List<VariableElement> columns = metadata.getColumns();
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            addReadColumn(readData, columns.get(i), "projection." + fields.get(i).getSimpleName(),
+                    String.valueOf(i), typeAdapters);
+        }
+        classBuilder.addMethod(readData.build());
+
+        return classBuilder.build();
+    }
+
+    @Nullable
+    private TypeElement getProjectionEntity(TypeElement projectionClass) {
+        TypeMirror entity = null;
+        try {
+            projectionClass.getAnnotation(Projection.class).entity();
+        } catch (MirroredTypeException e) {
+            // always goes to catch block
+            entity = e.getTypeMirror();
+        }
+        return entity != null ? (TypeElement) processingEnv.getTypeUtils().asElement(entity) : null;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+import java.util.Objects;
+
+public class ColumnSchema {
+    private String name;
+    private String type;
+    /** SQL literal of the default value, quoted for TEXT columns. */
+    private String defaultValue;
+    private boolean primaryKey;
+
+    public ColumnSchema(String name, String type, String defaultValue, boolean primaryKey) {
+        this.name = name;
+        this.type = type;
+        this.defaultValue = defaultValue;
+        this.primaryKey = primaryKey;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * @return {@code true} if the column is declared the same way, i.e. needs no table rebuild
+     */
+    public boolean isSameDefinition(ColumnSchema other) {
+        return type.equalsIgnoreCase(other.type)
+                && Objects.equals(defaultValue, other.defaultValue)
+                && primaryKey == other.primaryKey;
+    }
+}
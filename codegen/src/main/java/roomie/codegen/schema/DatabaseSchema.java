@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schema of the generated database as exported to {@code <version>.json}.
+ */
+public class DatabaseSchema {
+    public static final int FORMAT_VERSION = 1;
+
+    private int formatVersion = FORMAT_VERSION;
+    private int version;
+    private List<TableSchema> tables = new ArrayList<>();
+
+    public DatabaseSchema(int version) {
+        this.version = version;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<TableSchema> getTables() {
+        return tables;
+    }
+
+    public TableSchema findTable(String name) {
+        for (TableSchema table : tables) {
+            if (table.getName().equals(name)) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
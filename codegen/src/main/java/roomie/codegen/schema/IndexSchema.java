@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+import java.util.List;
+
+public class IndexSchema {
+    private String name;
+    private List<String> columns;
+    private boolean unique;
+    private String where;
+    private String createSql;
+
+    public IndexSchema(String name, List<String> columns, boolean unique, String where, String createSql) {
+        this.name = name;
+        this.columns = columns;
+        this.unique = unique;
+        this.where = where;
+        this.createSql = createSql;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public String getCreateSql() {
+        return createSql;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+/**
+ * Difference between two exported schemas and the way an upgrade applies it.
+ */
+public class SchemaChange {
+
+    public enum Kind {
+        CREATE_TABLE,
+        ADD_COLUMN,
+        REBUILD_TABLE,
+        CREATE_INDEX,
+        /** Left in the database as is, upgrades never drop data. */
+        OBSOLETE
+    }
+
+    private final String table;
+    private final Kind kind;
+    private final String description;
+
+    public SchemaChange(String table, Kind kind, String description) {
+        this.table = table;
+        this.kind = kind;
+        this.description = description;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + table + ": " + description;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@link DatabaseSchema} to {@code <directory>/<version>.json} and compares it
+ * with the latest schema exported for a lower version.
+ */
+public class SchemaExporter {
+    private static final String SCHEMA_FILE_EXTENSION = ".json";
+    private static final Gson COMPACT_GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    private final Gson gson = new GsonBuilder()
+            .setPrettyPrinting()
+            .disableHtmlEscaping()
+            .create();
+
+    private final File directory;
+
+    public SchemaExporter(File directory) {
+        this.directory = directory;
+    }
+
+    public File export(DatabaseSchema schema) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create schema directory " + directory);
+        }
+        File schemaFile = new File(directory, schema.getVersion() + SCHEMA_FILE_EXTENSION);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(schemaFile), StandardCharsets.UTF_8)) {
+            gson.toJson(schema, writer);
+        }
+        return schemaFile;
+    }
+
+    /**
+     * @return schema of the highest version below {@code version} or {@code null} if there is none
+     */
+    public DatabaseSchema readPrevious(int version) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return null;
+        }
+        File previousFile = null;
+        int previousVersion = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(SCHEMA_FILE_EXTENSION)) {
+                continue;
+            }
+            try {
+                int fileVersion = Integer.parseInt(name.substring(0, name.length() - SCHEMA_FILE_EXTENSION.length()));
+                if (fileVersion < version && fileVersion > previousVersion) {
+                    previousFile = file;
+                    previousVersion = fileVersion;
+                }
+            } catch (NumberFormatException ignored) {
+                // not a schema file
+            }
+        }
+        if (previousFile == null) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(previousFile), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, DatabaseSchema.class);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed schema " + previousFile, e);
+        }
+    }
+
+    public static String toJson(TableSchema table) {
+        return COMPACT_GSON.toJson(table);
+    }
+
+    public static TableSchema tableFromJson(String json) {
+        return COMPACT_GSON.fromJson(json, TableSchema.class);
+    }
+
+    /**
+     * @return changes an upgrade from {@code previous} to {@code current} applies
+     */
+    public static List<SchemaChange> diff(DatabaseSchema previous, DatabaseSchema current) {
+        List<SchemaChange> changes = new ArrayList<>();
+        for (TableSchema table : current.getTables()) {
+            TableSchema previousTable = previous.findTable(table.getName());
+            if (previousTable == null) {
+                changes.add(new SchemaChange(table.getName(), SchemaChange.Kind.CREATE_TABLE, "new table"));
+                continue;
+            }
+
+            for (ColumnSchema column : table.getColumns()) {
+                ColumnSchema previousColumn = previousTable.findColumn(column.getName());
+                if (previousColumn == null) {
+                    changes.add(new SchemaChange(table.getName(),
+                            column.isPrimaryKey() ? SchemaChange.Kind.REBUILD_TABLE : SchemaChange.Kind.ADD_COLUMN,
+                            "new column " + column.getName()));
+                } else if (!column.isSameDefinition(previousColumn)) {
+                    changes.add(new SchemaChange(table.getName(),
+                            SchemaChange.Kind.REBUILD_TABLE,
+                            "column " + column.getName() + " changed from " + describe(previousColumn)
+                                    + " to " + describe(column)));
+                }
+            }
+            for (ColumnSchema previousColumn : previousTable.getColumns()) {
+                if (table.findColumn(previousColumn.getName()) == null) {
+                    changes.add(new SchemaChange(table.getName(), SchemaChange.Kind.OBSOLETE,
+                            "removed column " + previousColumn.getName()));
+                }
+            }
+
+            for (IndexSchema index : table.getIndices()) {
+                IndexSchema previousIndex = previousTable.findIndex(index.getName());
+                if (previousIndex == null) {
+                    changes.add(new SchemaChange(table.getName(), SchemaChange.Kind.CREATE_INDEX,
+                            "new index " + index.getName()));
+                } else if (!index.getCreateSql().equals(previousIndex.getCreateSql())) {
+                    // CREATE INDEX IF NOT EXISTS keeps the old definition
+                    changes.add(new SchemaChange(table.getName(), SchemaChange.Kind.OBSOLETE,
+                            "index " + index.getName() + " changed its definition, rename it to apply"));
+                }
+            }
+            for (IndexSchema previousIndex : previousTable.getIndices()) {
+                if (table.findIndex(previousIndex.getName()) == null) {
+                    changes.add(new SchemaChange(table.getName(), SchemaChange.Kind.OBSOLETE,
+                            "removed index " + previousIndex.getName()));
+                }
+            }
+        }
+        for (TableSchema previousTable : previous.getTables()) {
+            if (current.findTable(previousTable.getName()) == null) {
+                changes.add(new SchemaChange(previousTable.getName(), SchemaChange.Kind.OBSOLETE, "removed table"));
+            }
+        }
+        return changes;
+    }
+
+    private static String describe(ColumnSchema column) {
+        StringBuilder description = new StringBuilder(column.getType());
+        if (column.getDefaultValue() != null) {
+            description.append(" DEFAULT ").append(column.getDefaultValue());
+        }
+        if (column.isPrimaryKey()) {
+            description.append(" PRIMARY KEY");
+        }
+        return description.toString();
+    }
+}
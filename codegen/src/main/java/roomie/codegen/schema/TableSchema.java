@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.schema;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TableSchema {
+    private String name;
+    private int version;
+    private String createSql;
+    private List<ColumnSchema> columns = new ArrayList<>();
+    private List<IndexSchema> indices = new ArrayList<>();
+
+    public TableSchema(String name, int version, String createSql) {
+        this.name = name;
+        this.version = version;
+        this.createSql = createSql;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getCreateSql() {
+        return createSql;
+    }
+
+    public List<ColumnSchema> getColumns() {
+        return columns;
+    }
+
+    public List<IndexSchema> getIndices() {
+        return indices;
+    }
+
+    public ColumnSchema findColumn(String name) {
+        for (ColumnSchema column : columns) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    public IndexSchema findIndex(String name) {
+        for (IndexSchema index : indices) {
+            if (index.getName().equals(name)) {
+                return index;
+            }
+        }
+        return null;
+    }
+}
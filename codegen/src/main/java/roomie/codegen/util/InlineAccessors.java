@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Anton Novikau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package roomie.codegen.util;
+
+
+import android.support.annotation.Nullable;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+
+import java.util.Date;
+
+/**
+ * Generates direct {@code SQLiteStatement} and {@code Cursor} calls for the built-in column
+ * types, so the generated code doesn't go through a {@code TypeAdapter} for them.
+ */
+public class InlineAccessors {
+
+    /**
+     * @return {@code true} if values of the type can be accessed without a type adapter.
+     * All types having a default type adapter are supported.
+     */
+    public static boolean isSupported(TypeName type) {
+        return TypeMapping.findAdapter(type) != null;
+    }
+
+    /**
+     * @return statements binding {@code value} at {@code index} expression of {@code statement}
+     * or {@code null} if the type isn't a built-in one.
+     */
+    @Nullable
+    public static CodeBlock bind(TypeName type, String statement, String index, String value) {
+        CodeBlock.Builder code = CodeBlock.builder();
+        if (type.isPrimitive()) {
+            if (TypeName.BOOLEAN.equals(type)) {
+                code.addStatement("$L.bindLong($L, $L ? 1 : 0)", statement, index, value);
+            } else if (TypeName.DOUBLE.equals(type) || TypeName.FLOAT.equals(type)) {
+                code.addStatement("$L.bindDouble($L, $L)", statement, index, value);
+            } else {
+                code.addStatement("$L.bindLong($L, $L)", statement, index, value);
+            }
+            return code.build();
+        }
+
+        if (TypeName.BOOLEAN.box().equals(type)) {
+            code.addStatement("$L.bindLong($L, ($L != null && $L) ? 1 : 0)", statement, index, value, value);
+            return code.build();
+        }
+        if (ClassName.get(Date.class).equals(type)) {
+            code.addStatement("$L.bindLong($L, $L != null ? $L.getTime() : 0L)", statement, index, value, value);
+            return code.build();
+        }
+
+        String bindMethod;
+        if (ClassName.get(String.class).equals(type)) {
+            bindMethod = "bindString";
+        } else if (ArrayTypeName.of(TypeName.BYTE).equals(type)) {
+            bindMethod = "bindBlob";
+        } else if (TypeName.DOUBLE.box().equals(type) || TypeName.FLOAT.box().equals(type)) {
+            bindMethod = "bindDouble";
+        } else if (TypeName.LONG.box().equals(type)
+                || TypeName.INT.box().equals(type)
+                || TypeName.SHORT.box().equals(type)
+                || TypeName.BYTE.box().equals(type)) {
+            bindMethod = "bindLong";
+        } else {
+            return null;
+        }
+
+        code.beginControlFlow("if ($L == null)", value);
+        code.addStatement("$L.bindNull($L)", statement, index);
+        code.nextControlFlow("else");
+        code.addStatement("$L.$L($L, $L)", statement, bindMethod, index, value);
+        code.endControlFlow();
+        return code.build();
+    }
+
+    /**
+     * @return statements reading column {@code index} expression of {@code cursor} into {@code target}
+     * or {@code null} if the type isn't a built-in one.
+     */
+    @Nullable
+    public static CodeBlock read(TypeName type, String cursor, String index, String target) {
+        CodeBlock.Builder code = CodeBlock.builder();
+        TypeName unboxed = type.isBoxedPrimitive() ? type.unbox() : type;
+        if (TypeName.LONG.equals(unboxed)) {
+            code.addStatement("$L = $L.getLong($L)", target, cursor, index);
+        } else if (TypeName.INT.equals(unboxed)) {
+            code.addStatement("$L = $L.getInt($L)", target, cursor, index);
+        } else if (TypeName.SHORT.equals(unboxed)) {
+            code.addStatement("$L = $L.getShort($L)", target, cursor, index);
+        } else if (TypeName.BYTE.equals(unboxed)) {
+            code.addStatement("$L = (byte) $L.getInt($L)", target, cursor, index);
+        } else if (TypeName.DOUBLE.equals(unboxed)) {
+            code.addStatement("$L = $L.getDouble($L)", target, cursor, index);
+        } else if (TypeName.FLOAT.equals(unboxed)) {
+            code.addStatement("$L = $L.getFloat($L)", target, cursor, index);
+        } else if (TypeName.BOOLEAN.equals(unboxed)) {
+            code.addStatement("$L = $L.getInt($L) != 0", target, cursor, index);
+        } else if (ClassName.get(String.class).equals(type)) {
+            code.addStatement("$L = $L.getString($L)", target, cursor, index);
+        } else if (ArrayTypeName.of(TypeName.BYTE).equals(type)) {
+            code.addStatement("$L = $L.getBlob($L)", target, cursor, index);
+        } else if (ClassName.get(Date.class).equals(type)) {
+            String timestamp = target.substring(target.lastIndexOf('.') + 1) + "Timestamp";
+            code.addStatement("long $L = $L.getLong($L)", timestamp, cursor, index);
+            code.addStatement("$L = $L > 0 ? new $T($L) : null", target, timestamp, Date.class, timestamp);
+        } else {
+            return null;
+        }
+        return code.build();
+    }
+
+    /**
+     * @return statements putting {@code value} to {@code values} under {@code key}
+     * or {@code null} if the type isn't a built-in one.
+     */
+    @Nullable
+    public static CodeBlock write(TypeName type, String values, String key, String value) {
+        CodeBlock.Builder code = CodeBlock.builder();
+        if (TypeName.BOOLEAN.equals(type)) {
+            code.addStatement("$L.put($S, $L ? 1 : 0)", values, key, value);
+        } else if (TypeName.BOOLEAN.box().equals(type)) {
+            code.addStatement("$L.put($S, ($L != null && $L) ? 1 : 0)", values, key, value, value);
+        } else if (ClassName.get(Date.class).equals(type)) {
+            code.addStatement("$L.put($S, $L != null ? $L.getTime() : 0L)", values, key, value, value);
+        } else if (isSupported(type)) {
+            code.addStatement("$L.put($S, $L)", values, key, value);
+        } else {
+            return null;
+        }
+        return code.build();
+    }
+
+    /**
+     * @return {@code true} if values of the type are never stored as {@code NULL}, e.g. a {@code null}
+     * {@code Date} is stored as {@code 0}, so a {@code null} value can't be told apart from a stored one.
+     */
+    public static boolean isStoredNonNull(TypeName type) {
+        return type.isPrimitive() || TypeName.BOOLEAN.box().equals(type) || ClassName.get(Date.class).equals(type);
+    }
+
+    /**
+     * @return expression converting {@code value} to a selection argument matching the stored data
+     * or {@code null} if the type isn't a built-in one or can't be used in a selection. The expression
+     * evaluates to {@code null} for values stored as {@code NULL}. Values of types
+     * {@link #isStoredNonNull(TypeName) never stored as NULL} must not be {@code null}.
+     */
+    @Nullable
+    public static CodeBlock toSelectionArg(TypeName type, String value) {
+        if (TypeName.BOOLEAN.equals(type) || TypeName.BOOLEAN.box().equals(type)) {
+            return CodeBlock.of("$L ? $S : $S", value, "1", "0");
+        } else if (ClassName.get(Date.class).equals(type)) {
+            return CodeBlock.of("$T.toString($L.getTime())", Long.class, value);
+        } else if (ClassName.get(String.class).equals(type)) {
+            return CodeBlock.of("$L", value);
+        } else if (type.isPrimitive()) {
+            return CodeBlock.of("$T.valueOf($L)", String.class, value);
+        } else if (type.isBoxedPrimitive()) {
+            return CodeBlock.of("$L != null ? $L.toString() : null", value, value);
+        }
+        return null;
+    }
+}
@@ -19,6 +19,7 @@ package roomie.sample;
 import android.app.Application;
 
 import roomie.api.DatabaseProvider;
+import roomie.api.WriteQueue;
 import roomie.sample.db.DbHelper;
 import roomie.sample.db.RoomieDatabaseProvider;
 import roomie.sample.rxbus.RxBus;
@@ -27,6 +28,7 @@ import roomie.sample.rxbus.RxBus;
 public class App extends Application {
 
     private DatabaseProvider databaseProvider;
+    private WriteQueue writeQueue;
     private RxBus eventBus;
 
     @Override
@@ -34,6 +36,7 @@ public class App extends Application {
         super.onCreate();
 
         databaseProvider = new RoomieDatabaseProvider(new DbHelper(this));
+        writeQueue = new WriteQueue(databaseProvider);
         eventBus = new RxBus();
     }
 
@@ -41,6 +44,10 @@ public class App extends Application {
         return databaseProvider;
     }
 
+    public WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     public RxBus getEventBus() {
         return eventBus;
     }
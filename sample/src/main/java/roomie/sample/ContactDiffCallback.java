@@ -21,17 +21,17 @@ import android.support.v7.util.DiffUtil;
 
 import java.util.List;
 
-import roomie.sample.db.entity.ContactEntity;
+import roomie.sample.db.entity.ContactListItem;
 
 
 public class ContactDiffCallback extends DiffUtil.Callback {
 
     @NonNull
-    private final List<ContactEntity> oldList;
+    private final List<ContactListItem> oldList;
     @NonNull
-    private final List<ContactEntity> newList;
+    private final List<ContactListItem> newList;
 
-    public ContactDiffCallback(@NonNull List<ContactEntity> oldList, @NonNull List<ContactEntity> newList) {
+    public ContactDiffCallback(@NonNull List<ContactListItem> oldList, @NonNull List<ContactListItem> newList) {
         this.oldList = oldList;
         this.newList = newList;
     }
@@ -174,7 +174,7 @@ public class ContactEditActivity extends AppCompatActivity {
             contact.setPhotoUri(pickedImage.getLargeImage());
         }
 
-        Completable.defer(() -> Completable.fromRunnable(() -> contact.save(getApplicationContext())))
+        Completable.defer(() -> Completable.fromFuture(contact.saveAsync(getApplicationContext())))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::onContactSaved, (e) -> onContactSaveError());
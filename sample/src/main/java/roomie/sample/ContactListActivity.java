@@ -38,13 +38,14 @@ import io.reactivex.schedulers.Schedulers;
 import roomie.api.DatabaseProvider;
 import roomie.sample.db.RoomieDatabaseProvider;
 import roomie.sample.db.entity.ContactEntity;
+import roomie.sample.db.entity.ContactListItem;
 import roomie.sample.rxbus.ContactEvent;
 import roomie.sample.rxbus.RxBus;
 import roomie.sample.rxbus.Subscriber;
 import roomie.sample.ui.OnItemClickListener;
 import roomie.sample.ui.SwipeToDeleteCallback;
 
-import static roomie.sample.db.entity.ContactEntityHelper.queryAll;
+import static roomie.sample.db.entity.ContactListItemHelper.queryAll;
 
 public class ContactListActivity extends AppCompatActivity {
     static final String LOG_TAG = "ContactListActivity";
@@ -55,7 +56,7 @@ public class ContactListActivity extends AppCompatActivity {
     private final Subscriber<ContactEvent> subscriber = new ContactChangeSubscriber(this);
 
     private final OnItemClickListener itemClickListener = (position) -> {
-        ContactEntity contact = contactListAdapter.getItem(position);
+        ContactListItem contact = contactListAdapter.getItem(position);
         if (contact != null) {
             Intent intent = new Intent(this, ContactDetailsActivity.class);
             intent.putExtra(ContactDetailsActivity.EXTRA_CONTACT_ID, contact.getId());
@@ -85,7 +86,7 @@ public class ContactListActivity extends AppCompatActivity {
             @Override
             public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
                 int position = viewHolder.getAdapterPosition();
-                ContactEntity contact = contactListAdapter.getItem(position);
+                ContactListItem contact = contactListAdapter.getItem(position);
                 if (contact != null) {
                     contactListAdapter.removeAt(position);
                     handleContactRemoved(contact);
@@ -105,7 +106,7 @@ public class ContactListActivity extends AppCompatActivity {
     }
 
     /* package */ void loadContacts() {
-        Single.create((SingleOnSubscribe<List<ContactEntity>>) e -> e.onSuccess(queryAll(databaseProvider)))
+        Single.create((SingleOnSubscribe<List<ContactListItem>>) e -> e.onSuccess(queryAll(databaseProvider)))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::onContactsLoaded);
@@ -115,16 +116,18 @@ public class ContactListActivity extends AppCompatActivity {
         startActivity(new Intent(this, ContactEditActivity.class));
     }
 
-    private void onContactsLoaded(@NonNull List<ContactEntity> contacts) {
+    private void onContactsLoaded(@NonNull List<ContactListItem> contacts) {
         Log.d("CONTACTS", "contacts loaded = " + contacts);
-        List<ContactEntity> oldContacts = contactListAdapter.getData();
+        List<ContactListItem> oldContacts = contactListAdapter.getData();
         DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new ContactDiffCallback(oldContacts, contacts));
         contactListAdapter.setData(contacts);
         diff.dispatchUpdatesTo(contactListAdapter);
     }
 
-    private void handleContactRemoved(ContactEntity contact) {
-        Completable.defer(() -> Completable.fromRunnable(() -> contact.delete(getApplicationContext())))
+    private void handleContactRemoved(ContactListItem item) {
+        ContactEntity contact = new ContactEntity();
+        contact.setId(item.getId());
+        Completable.defer(() -> Completable.fromFuture(contact.deleteAsync(getApplicationContext())))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::onContactDeleted, (e) -> onContactDeleteError());
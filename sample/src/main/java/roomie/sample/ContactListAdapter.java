@@ -32,7 +32,7 @@ import com.bumptech.glide.request.RequestOptions;
 import java.util.Collections;
 import java.util.List;
 
-import roomie.sample.db.entity.ContactEntity;
+import roomie.sample.db.entity.ContactListItem;
 import roomie.sample.ui.OnItemClickListener;
 
 
@@ -43,7 +43,7 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListAdapter.
     private final OnItemClickListener clickListener;
     private final RequestOptions loadImageOptions;
     @NonNull
-    private List<ContactEntity> contacts = Collections.emptyList();
+    private List<ContactListItem> contacts = Collections.emptyList();
 
     public ContactListAdapter(@NonNull Context context, @Nullable OnItemClickListener clickListener) {
         this.context = context.getApplicationContext();
@@ -56,11 +56,11 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListAdapter.
     }
 
     @NonNull
-    public List<ContactEntity> getData() {
+    public List<ContactListItem> getData() {
         return contacts;
     }
 
-    public void setData(@NonNull List<ContactEntity> data) {
+    public void setData(@NonNull List<ContactListItem> data) {
         contacts = data;
     }
 
@@ -84,17 +84,17 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListAdapter.
 
     @Override
     public void onBindViewHolder(Holder holder, int position) {
-        ContactEntity contact = contacts.get(position);
+        ContactListItem contact = contacts.get(position);
         holder.contactName.setText(contact.getFullName(context));
         holder.phoneNumber.setText(contact.getPhoneNumber());
         Glide.with(holder.contactImage)
-                .load(contact.getPhotoUri())
+                .load(contact.getSmallPhotoUri())
                 .apply(loadImageOptions)
                 .into(holder.contactImage);
     }
 
     @Nullable
-    public ContactEntity getItem(int position) {
+    public ContactListItem getItem(int position) {
         if (position < 0 || position >= contacts.size()) {
             return null;
         }
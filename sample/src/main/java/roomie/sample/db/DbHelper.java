@@ -17,16 +17,30 @@
 package roomie.sample.db;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 
+import roomie.api.DatabaseConfig;
 import roomie.sample.RoomieDatabaseHelper;
 
 
+@DatabaseConfig(synchronous = DatabaseConfig.Synchronous.NORMAL, mmapSize = 8 * 1024 * 1024)
 public class DbHelper extends RoomieDatabaseHelper {
 
     private static final String DATABASE_NAME = "sample_data";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
 
     public DbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase database, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // version 2 adds a unique index on phone numbers, the oldest contact keeps a shared number
+            database.execSQL("UPDATE `contacts` SET `PHONE_NUMBER` = NULL"
+                    + " WHERE `PHONE_NUMBER` IS NOT NULL AND `_ID` NOT IN"
+                    + " (SELECT MIN(`_ID`) FROM `contacts` GROUP BY `PHONE_NUMBER`)");
+        }
+        super.onUpgrade(database, oldVersion, newVersion);
+    }
 }
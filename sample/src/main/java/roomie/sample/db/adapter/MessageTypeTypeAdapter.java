@@ -18,6 +18,7 @@ package roomie.sample.db.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 
 import roomie.api.adapter.TypeAdapter;
 import roomie.sample.db.entity.MessageType;
@@ -39,4 +40,13 @@ public class MessageTypeTypeAdapter implements TypeAdapter<MessageType> {
             values.put(key, value.name());
         }
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, MessageType value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value.name());
+        }
+    }
 }
@@ -18,6 +18,7 @@ package roomie.sample.db.adapter;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 import android.text.TextUtils;
 
@@ -35,4 +36,13 @@ public class UriTypeAdapter implements TypeAdapter<Uri> {
     public void write(String key, Uri value, ContentValues values) {
         values.put(key, value != null ? value.toString() : null);
     }
+
+    @Override
+    public void bind(SQLiteStatement statement, int index, Uri value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
 }
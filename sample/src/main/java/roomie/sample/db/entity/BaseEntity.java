@@ -21,39 +21,56 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.WorkerThread;
 
+import java.util.concurrent.Future;
+
 import roomie.api.EntityHelper;
+import roomie.api.WriteQueue;
+import roomie.sample.App;
 import roomie.sample.db.RoomieDatabaseProvider;
 
 public abstract class BaseEntity<T extends BaseEntity<?>> {
 
+    /**
+     * @return shared helper instance of the entity, e.g. {@code ContactEntityHelper.INSTANCE}
+     */
     @NonNull
-    private final EntityHelper<T> mEntityHelper;
-
-    protected BaseEntity(@NonNull EntityHelper<T> entityHelper) {
-        mEntityHelper = entityHelper;
-    }
+    protected abstract EntityHelper<T> getEntityHelper();
 
     @WorkerThread
     @SuppressWarnings("unchecked")
     public final void load(Context context) {
-        mEntityHelper.load((T) this, RoomieDatabaseProvider.from(context));
+        getEntityHelper().load((T) this, RoomieDatabaseProvider.from(context));
     }
 
     @WorkerThread
     @SuppressWarnings("unchecked")
     public final void save(Context context) {
-        mEntityHelper.save((T) this, RoomieDatabaseProvider.from(context));
+        getEntityHelper().save((T) this, RoomieDatabaseProvider.from(context));
     }
 
     @WorkerThread
     @SuppressWarnings("unchecked")
     public final void delete(Context context) {
-        mEntityHelper.delete((T) this, RoomieDatabaseProvider.from(context));
+        getEntityHelper().delete((T) this, RoomieDatabaseProvider.from(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    public final Future<Void> saveAsync(Context context) {
+        return getEntityHelper().saveAsync((T) this, getWriteQueue(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    public final Future<Void> deleteAsync(Context context) {
+        return getEntityHelper().deleteAsync((T) this, getWriteQueue(context));
+    }
+
+    private static WriteQueue getWriteQueue(Context context) {
+        return ((App) context.getApplicationContext()).getWriteQueue();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public String toString() {
-        return mEntityHelper.toString((T) this);
+        return getEntityHelper().toString((T) this);
     }
 }
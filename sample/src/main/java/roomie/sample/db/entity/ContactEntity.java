@@ -19,16 +19,19 @@ package roomie.sample.db.entity;
 
 import android.content.Context;
 import android.net.Uri;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import roomie.api.Column;
 import roomie.api.DatabaseType;
 import roomie.api.Entity;
+import roomie.api.EntityHelper;
 import roomie.api.PrimaryKey;
+import roomie.api.Unique;
 import roomie.sample.R;
 import roomie.sample.db.adapter.UriTypeAdapter;
 
-@Entity(table = "contacts")
+@Entity(table = "contacts", version = 2, cacheQueries = true)
 public class ContactEntity extends BaseEntity<ContactEntity> {
 
     @Column(name = "_ID")
@@ -36,17 +39,20 @@ public class ContactEntity extends BaseEntity<ContactEntity> {
     long id;
     @Column(name = "FIRST_NAME")
     String firstName;
-    @Column(name = "LAST_NAME")
+    @Column(name = "LAST_NAME", sortable = true)
     String lastName;
     @Column(name = "PHONE_NUMBER")
+    @Unique
     String phoneNumber;
     @Column(name = "PHOTO_URI", adapter = UriTypeAdapter.class, databaseType = DatabaseType.TEXT)
     Uri photoUri;
     @Column(name = "SMALL_PHOTO_URI", adapter = UriTypeAdapter.class, databaseType = DatabaseType.TEXT)
     Uri smallPhotoUri;
 
-    public ContactEntity() {
-        super(new ContactEntityHelper());
+    @NonNull
+    @Override
+    protected EntityHelper<ContactEntity> getEntityHelper() {
+        return ContactEntityHelper.INSTANCE;
     }
 
     public long getId() {
@@ -17,26 +17,31 @@
 package roomie.sample.db.entity;
 
 import android.net.Uri;
+import android.support.annotation.NonNull;
 
 import java.util.Date;
 
 import roomie.api.Column;
 import roomie.api.DatabaseType;
 import roomie.api.Entity;
+import roomie.api.EntityHelper;
+import roomie.api.Index;
 import roomie.api.PrimaryKey;
 import roomie.sample.db.adapter.MessageTypeTypeAdapter;
 import roomie.sample.db.adapter.UriTypeAdapter;
 
-@Entity(table = "message")
+@Entity(table = "message", version = 2, trackChanges = true)
+@Index(columns = {"MESSAGE_TYPE", "MESSAGE_DATE"})
 public class MessageEntity extends BaseEntity<MessageEntity> {
     @Column(name = "_ID")
     @PrimaryKey
     long id;
 
-    @Column
+    @Column(lazy = true)
     String body;
 
     @Column(name = "MESSAGE_DATE")
+    @Index
     Date messageDate;
 
     @Column(name = "READ_COUNTER", defaultValue = "1")
@@ -45,11 +50,16 @@ public class MessageEntity extends BaseEntity<MessageEntity> {
     @Column(name = "USERPIC", adapter = UriTypeAdapter.class, databaseType = DatabaseType.TEXT)
     Uri image;
 
-    @Column(name = "MESSAGE_TYPE", adapter = MessageTypeTypeAdapter.class, databaseType = DatabaseType.TEXT)
+    @Column(name = "MESSAGE_TYPE",
+            adapter = MessageTypeTypeAdapter.class,
+            databaseType = DatabaseType.TEXT,
+            groupable = true)
     MessageType messageType;
 
-    public MessageEntity() {
-        super(new MessageEntityHelper());
+    @NonNull
+    @Override
+    protected EntityHelper<MessageEntity> getEntityHelper() {
+        return MessageEntityHelper.INSTANCE;
     }
 
     public long getId() {